@@ -29,6 +29,10 @@ public final class OpenGeminiColumn
     public static final String TIME_KIND = "TIMESTAMP";
     public static final String TAG_KIND = "TAG";
     public static final String FIELD_KIND = "FIELD";
+    // computed by an aggregate function pushed down
+    public static final String AGGREGATE_KIND = "AGGREGATE";
+    // time truncated to a bucket, whose expression is the bucket interval like 1m
+    public static final String TIME_BUCKET_KIND = "TIME_BUCKET";
 
     private final String name;
     private final Type type;
@@ -16,29 +16,47 @@ package io.trino.plugin.opengemini;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.airlift.slice.SizeOf;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ColumnMetadata;
 import io.trino.spi.type.Type;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Optional;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static io.airlift.slice.SizeOf.estimatedSizeOf;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
 public final class OpenGeminiColumnHandle
         implements ColumnHandle
 {
+    private static final int INSTANCE_SIZE = toIntExact(ClassLayout.parseClass(OpenGeminiColumnHandle.class).instanceSize());
+
     private final String columnName;
     private final Type columnType;
     private final String columnKind;
+    // InfluxQL expression computing the column, such as an aggregate function, selected as the column name
+    private final Optional<String> expression;
+
+    public OpenGeminiColumnHandle(String columnName, Type columnType, String columnKind)
+    {
+        this(columnName, columnType, columnKind, Optional.empty());
+    }
 
     @JsonCreator
     public OpenGeminiColumnHandle(
             @JsonProperty("columnName") String columnName,
             @JsonProperty("columnType") Type columnType,
-            @JsonProperty("columnKind") String columnKind)
+            @JsonProperty("columnKind") String columnKind,
+            @JsonProperty("expression") Optional<String> expression)
     {
         this.columnName = requireNonNull(columnName, "columnName is null");
         this.columnType = requireNonNull(columnType, "columnType is null");
         this.columnKind = requireNonNull(columnKind, "columnKind is null");
+        this.expression = requireNonNull(expression, "expression is null");
     }
 
     @JsonProperty
@@ -59,11 +77,23 @@ public final class OpenGeminiColumnHandle
         return columnKind;
     }
 
+    @JsonProperty
+    public Optional<String> getExpression()
+    {
+        return expression;
+    }
+
     public ColumnMetadata getColumnMetadata()
     {
         return new ColumnMetadata(columnName, columnType);
     }
 
+    public long getRetainedSizeInBytes()
+    {
+        // type is a shared instance
+        return INSTANCE_SIZE + estimatedSizeOf(columnName) + estimatedSizeOf(columnKind) + sizeOf(expression, SizeOf::estimatedSizeOf);
+    }
+
     @Override
     public int hashCode()
     {
@@ -90,6 +120,7 @@ public final class OpenGeminiColumnHandle
         return toStringHelper(this)
                 .add("columnName", columnName)
                 .add("columnType", columnType)
+                .add("expression", expression.orElse(null))
                 .toString();
     }
 }
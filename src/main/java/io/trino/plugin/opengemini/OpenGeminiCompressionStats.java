@@ -0,0 +1,82 @@
+/* Copyright 2024 Huawei Cloud Computing Technologies Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.opengemini;
+
+import org.weakref.jmx.Managed;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// bytes sent and received over http before and after compression
+public class OpenGeminiCompressionStats
+{
+    private final AtomicLong writeUncompressedBytes = new AtomicLong();
+    private final AtomicLong writeCompressedBytes = new AtomicLong();
+    private final AtomicLong readUncompressedBytes = new AtomicLong();
+    private final AtomicLong readCompressedBytes = new AtomicLong();
+
+    public void addWrite(long uncompressedBytes, long compressedBytes)
+    {
+        writeUncompressedBytes.addAndGet(uncompressedBytes);
+        writeCompressedBytes.addAndGet(compressedBytes);
+    }
+
+    public void addRead(long uncompressedBytes, long compressedBytes)
+    {
+        readUncompressedBytes.addAndGet(uncompressedBytes);
+        readCompressedBytes.addAndGet(compressedBytes);
+    }
+
+    @Managed
+    public long getWriteUncompressedBytes()
+    {
+        return writeUncompressedBytes.get();
+    }
+
+    @Managed
+    public long getWriteCompressedBytes()
+    {
+        return writeCompressedBytes.get();
+    }
+
+    // uncompressed bytes divided by the bytes on the wire
+    @Managed
+    public double getWriteCompressionRatio()
+    {
+        return ratio(writeUncompressedBytes.get(), writeCompressedBytes.get());
+    }
+
+    @Managed
+    public long getReadUncompressedBytes()
+    {
+        return readUncompressedBytes.get();
+    }
+
+    @Managed
+    public long getReadCompressedBytes()
+    {
+        return readCompressedBytes.get();
+    }
+
+    @Managed
+    public double getReadCompressionRatio()
+    {
+        return ratio(readUncompressedBytes.get(), readCompressedBytes.get());
+    }
+
+    private static double ratio(long uncompressedBytes, long compressedBytes)
+    {
+        return compressedBytes == 0 ? Double.NaN : (double) uncompressedBytes / compressedBytes;
+    }
+}
@@ -16,7 +16,10 @@ package io.trino.plugin.opengemini;
 
 import io.airlift.configuration.Config;
 import io.airlift.configuration.ConfigSecuritySensitive;
+import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import io.airlift.units.MaxDataSize;
+import io.airlift.units.MinDataSize;
 import io.airlift.units.MinDuration;
 import io.trino.spi.function.Description;
 
@@ -31,6 +34,11 @@ public class OpenGeminiConfig
 {
     private static final Duration DEFAULT_TIMEOUT = new Duration(10, TimeUnit.SECONDS);
     private static final Duration DEFAULT_CACHE_EXPIRE_DURATION = new Duration(60, TimeUnit.SECONDS);
+    private static final Duration DEFAULT_CACHE_REFRESH_INTERVAL = new Duration(30, TimeUnit.SECONDS);
+    private static final DataSize DEFAULT_MAX_BUFFER_SIZE = DataSize.of(16, DataSize.Unit.MEGABYTE);
+    private static final DataSize DEFAULT_WRITE_BATCH_SIZE = DataSize.of(1, DataSize.Unit.MEGABYTE);
+    private static final Duration DEFAULT_WRITE_BATCH_LINGER = new Duration(1, TimeUnit.SECONDS);
+    private static final Duration DEFAULT_MIN_SPLIT_DURATION = new Duration(10, TimeUnit.MINUTES);
 
     private URI endpoint;
     private String username;
@@ -43,14 +51,60 @@ public class OpenGeminiConfig
 
     // keepalive or not for OkHttpClient when connecting
     private boolean keepalive;
+    // gzip the bodies of write requests, and ask for gzip query responses
+    private boolean writeCompressionEnabled;
+    private boolean queryCompressionEnabled = true;
 
     // cache expire duration
     private Duration cacheExpireDuration = DEFAULT_CACHE_EXPIRE_DURATION;
+    // stale entries are served while they are reloaded in background after the refresh interval,
+    // which takes effect only if it is shorter than the expire duration
+    private Duration cacheRefreshInterval = DEFAULT_CACHE_REFRESH_INTERVAL;
+    private long cacheMaximumSize = 10_000;
+    private int cacheRefreshThreads = 4;
+    // table statistics are loaded in background by queries bounded by this timeout
+    private Duration statisticsTimeout = new Duration(30, TimeUnit.SECONDS);
+    // table statistics are reloaded after this interval, and a failed load is retried only after it
+    private Duration statisticsRefreshInterval = new Duration(30, TimeUnit.MINUTES);
 
     // used for chunk querying
     private int chunkSize;
     // used for poll chunk query result
     private Duration chunkPollTimeout = DEFAULT_TIMEOUT;
+    // max bytes of received chunks buffered per scan, reading the response pauses when it is full
+    private DataSize maxBufferSize = DEFAULT_MAX_BUFFER_SIZE;
+    // a scan waits at most this long for the dynamic filters of joins before sending its query
+    private Duration dynamicFilteringWaitTimeout = new Duration(1, TimeUnit.SECONDS);
+
+    // used for cutting one scan into splits
+    private SplitStrategy splitStrategy = SplitStrategy.TIME;
+    private int maxSplits = 16;
+    private Duration minSplitDuration = DEFAULT_MIN_SPLIT_DURATION;
+    // tag used by series splits, the first tag of the measurement if not set
+    private String partitionTag;
+
+    // used for writing, batches are sent asynchronously with at most this many requests in flight per writer
+    private int maxInFlightWrites = 4;
+    // a batch is sent when it reaches the size or the points, or it has been open for the linger time
+    private DataSize writeBatchSize = DEFAULT_WRITE_BATCH_SIZE;
+    private int writeBatchPoints = 10_000;
+    private Duration writeBatchLinger = DEFAULT_WRITE_BATCH_LINGER;
+    // failed writes are retried with exponential backoff on timeouts, 429 and 5xx responses
+    private int writeMaxRetries = 3;
+    private Duration writeRetryInitialDelay = new Duration(200, TimeUnit.MILLISECONDS);
+    private Duration writeRetryMaxDelay = new Duration(10, TimeUnit.SECONDS);
+    // points rejected in partial writes, e.g. for field type conflicts, are counted instead of failing the insert
+    private boolean writeIgnoreRejectedPoints;
+    // statements writing inside openGemini, such as select into, may run this long
+    private Duration writeQueryTimeout = new Duration(1, TimeUnit.HOURS);
+
+    public enum SplitStrategy
+    {
+        // cut the time range of the scan into slices
+        TIME,
+        // shard the values of the partition tag, so that each split reads a disjoint set of series
+        SERIES,
+    }
 
     @NotNull
     @Description("to connect database, like http://localhost:8086 or https://localhost:8086")
@@ -144,6 +198,30 @@ public class OpenGeminiConfig
         return this;
     }
 
+    public boolean isWriteCompressionEnabled()
+    {
+        return writeCompressionEnabled;
+    }
+
+    @Config("opengemini.write.compression-enabled")
+    public OpenGeminiConfig setWriteCompressionEnabled(boolean writeCompressionEnabled)
+    {
+        this.writeCompressionEnabled = writeCompressionEnabled;
+        return this;
+    }
+
+    public boolean isQueryCompressionEnabled()
+    {
+        return queryCompressionEnabled;
+    }
+
+    @Config("opengemini.query.compression-enabled")
+    public OpenGeminiConfig setQueryCompressionEnabled(boolean queryCompressionEnabled)
+    {
+        this.queryCompressionEnabled = queryCompressionEnabled;
+        return this;
+    }
+
     @MinDuration("0s")
     public Duration getCacheExpireDuration()
     {
@@ -157,6 +235,45 @@ public class OpenGeminiConfig
         return this;
     }
 
+    @MinDuration("1ms")
+    public Duration getCacheRefreshInterval()
+    {
+        return cacheRefreshInterval;
+    }
+
+    @Config("opengemini.cache.refresh-interval")
+    public OpenGeminiConfig setCacheRefreshInterval(Duration cacheRefreshInterval)
+    {
+        this.cacheRefreshInterval = cacheRefreshInterval;
+        return this;
+    }
+
+    @Min(1)
+    public long getCacheMaximumSize()
+    {
+        return cacheMaximumSize;
+    }
+
+    @Config("opengemini.cache.maximum-size")
+    public OpenGeminiConfig setCacheMaximumSize(long cacheMaximumSize)
+    {
+        this.cacheMaximumSize = cacheMaximumSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getCacheRefreshThreads()
+    {
+        return cacheRefreshThreads;
+    }
+
+    @Config("opengemini.cache.refresh-threads")
+    public OpenGeminiConfig setCacheRefreshThreads(int cacheRefreshThreads)
+    {
+        this.cacheRefreshThreads = cacheRefreshThreads;
+        return this;
+    }
+
     @Min(0)
     public int getChunkSize()
     {
@@ -181,4 +298,233 @@ public class OpenGeminiConfig
         this.chunkPollTimeout = timeout;
         return this;
     }
+
+    @NotNull
+    @MinDataSize("1kB")
+    public DataSize getMaxBufferSize()
+    {
+        return maxBufferSize;
+    }
+
+    @Config("opengemini.query.max-buffer-size")
+    public OpenGeminiConfig setMaxBufferSize(DataSize maxBufferSize)
+    {
+        this.maxBufferSize = maxBufferSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    public Duration getWriteQueryTimeout()
+    {
+        return writeQueryTimeout;
+    }
+
+    @Config("opengemini.write.query-timeout")
+    public OpenGeminiConfig setWriteQueryTimeout(Duration writeQueryTimeout)
+    {
+        this.writeQueryTimeout = writeQueryTimeout;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    public Duration getStatisticsTimeout()
+    {
+        return statisticsTimeout;
+    }
+
+    @Config("opengemini.statistics.timeout")
+    public OpenGeminiConfig setStatisticsTimeout(Duration statisticsTimeout)
+    {
+        this.statisticsTimeout = statisticsTimeout;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    public Duration getStatisticsRefreshInterval()
+    {
+        return statisticsRefreshInterval;
+    }
+
+    @Config("opengemini.statistics.refresh-interval")
+    public OpenGeminiConfig setStatisticsRefreshInterval(Duration statisticsRefreshInterval)
+    {
+        this.statisticsRefreshInterval = statisticsRefreshInterval;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("0s")
+    public Duration getDynamicFilteringWaitTimeout()
+    {
+        return dynamicFilteringWaitTimeout;
+    }
+
+    @Config("opengemini.dynamic-filtering.wait-timeout")
+    public OpenGeminiConfig setDynamicFilteringWaitTimeout(Duration dynamicFilteringWaitTimeout)
+    {
+        this.dynamicFilteringWaitTimeout = dynamicFilteringWaitTimeout;
+        return this;
+    }
+
+    @NotNull
+    public SplitStrategy getSplitStrategy()
+    {
+        return splitStrategy;
+    }
+
+    @Config("opengemini.query.split-strategy")
+    public OpenGeminiConfig setSplitStrategy(SplitStrategy splitStrategy)
+    {
+        this.splitStrategy = splitStrategy;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxSplits()
+    {
+        return maxSplits;
+    }
+
+    @Config("opengemini.query.max-splits")
+    public OpenGeminiConfig setMaxSplits(int maxSplits)
+    {
+        this.maxSplits = maxSplits;
+        return this;
+    }
+
+    @MinDuration("1ms")
+    public Duration getMinSplitDuration()
+    {
+        return minSplitDuration;
+    }
+
+    @Config("opengemini.query.min-split-duration")
+    public OpenGeminiConfig setMinSplitDuration(Duration duration)
+    {
+        this.minSplitDuration = duration;
+        return this;
+    }
+
+    public String getPartitionTag()
+    {
+        return partitionTag;
+    }
+
+    @Config("opengemini.query.partition-tag")
+    public OpenGeminiConfig setPartitionTag(String partitionTag)
+    {
+        this.partitionTag = partitionTag;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxInFlightWrites()
+    {
+        return maxInFlightWrites;
+    }
+
+    @Config("opengemini.write.max-in-flight-requests")
+    public OpenGeminiConfig setMaxInFlightWrites(int maxInFlightWrites)
+    {
+        this.maxInFlightWrites = maxInFlightWrites;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("1kB")
+    @MaxDataSize("1GB")
+    public DataSize getWriteBatchSize()
+    {
+        return writeBatchSize;
+    }
+
+    @Config("opengemini.write.batch-size")
+    public OpenGeminiConfig setWriteBatchSize(DataSize writeBatchSize)
+    {
+        this.writeBatchSize = writeBatchSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getWriteBatchPoints()
+    {
+        return writeBatchPoints;
+    }
+
+    @Config("opengemini.write.batch-points")
+    public OpenGeminiConfig setWriteBatchPoints(int writeBatchPoints)
+    {
+        this.writeBatchPoints = writeBatchPoints;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("0s")
+    public Duration getWriteBatchLinger()
+    {
+        return writeBatchLinger;
+    }
+
+    @Config("opengemini.write.batch-linger")
+    public OpenGeminiConfig setWriteBatchLinger(Duration writeBatchLinger)
+    {
+        this.writeBatchLinger = writeBatchLinger;
+        return this;
+    }
+
+    @Min(0)
+    public int getWriteMaxRetries()
+    {
+        return writeMaxRetries;
+    }
+
+    @Config("opengemini.write.max-retries")
+    public OpenGeminiConfig setWriteMaxRetries(int writeMaxRetries)
+    {
+        this.writeMaxRetries = writeMaxRetries;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    public Duration getWriteRetryInitialDelay()
+    {
+        return writeRetryInitialDelay;
+    }
+
+    @Config("opengemini.write.retry-initial-delay")
+    public OpenGeminiConfig setWriteRetryInitialDelay(Duration writeRetryInitialDelay)
+    {
+        this.writeRetryInitialDelay = writeRetryInitialDelay;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    public Duration getWriteRetryMaxDelay()
+    {
+        return writeRetryMaxDelay;
+    }
+
+    @Config("opengemini.write.retry-max-delay")
+    public OpenGeminiConfig setWriteRetryMaxDelay(Duration writeRetryMaxDelay)
+    {
+        this.writeRetryMaxDelay = writeRetryMaxDelay;
+        return this;
+    }
+
+    public boolean isWriteIgnoreRejectedPoints()
+    {
+        return writeIgnoreRejectedPoints;
+    }
+
+    @Config("opengemini.write.ignore-rejected-points")
+    public OpenGeminiConfig setWriteIgnoreRejectedPoints(boolean writeIgnoreRejectedPoints)
+    {
+        this.writeIgnoreRejectedPoints = writeIgnoreRejectedPoints;
+        return this;
+    }
 }
@@ -14,18 +14,22 @@
  */
 package io.trino.plugin.opengemini;
 
+import com.google.common.collect.ImmutableSet;
 import io.airlift.bootstrap.LifeCycleManager;
 import io.trino.spi.connector.Connector;
 import io.trino.spi.connector.ConnectorMetadata;
 import io.trino.spi.connector.ConnectorPageSinkProvider;
-import io.trino.spi.connector.ConnectorRecordSetProvider;
+import io.trino.spi.connector.ConnectorPageSourceProvider;
 import io.trino.spi.connector.ConnectorSession;
 import io.trino.spi.connector.ConnectorSplitManager;
 import io.trino.spi.connector.ConnectorTransactionHandle;
+import io.trino.spi.procedure.Procedure;
 import io.trino.spi.transaction.IsolationLevel;
 
 import javax.inject.Inject;
 
+import java.util.Set;
+
 import static io.trino.plugin.opengemini.OpenGeminiTransactionHandle.INSTANCE;
 import static java.util.Objects.requireNonNull;
 
@@ -35,22 +39,25 @@ public class OpenGeminiConnector
     private final LifeCycleManager lifeCycleManager;
     private final OpenGeminiMetadata metadata;
     private final OpenGeminiSplitManager splitManager;
-    private final OpenGeminiRecordSetProvider recordSetProvider;
+    private final OpenGeminiPageSourceProvider pageSourceProvider;
     private final OpenGeminiPageSinkProvider pageSinkProvider;
+    private final Set<Procedure> procedures;
 
     @Inject
     public OpenGeminiConnector(
             LifeCycleManager lifeCycleManager,
             OpenGeminiMetadata metadata,
             OpenGeminiSplitManager splitManager,
-            OpenGeminiRecordSetProvider recordSetProvider,
-            OpenGeminiPageSinkProvider pageSinkProvider)
+            OpenGeminiPageSourceProvider pageSourceProvider,
+            OpenGeminiPageSinkProvider pageSinkProvider,
+            Set<Procedure> procedures)
     {
         this.lifeCycleManager = requireNonNull(lifeCycleManager, "lifeCycleManager is null");
         this.metadata = requireNonNull(metadata, "metadata is null");
         this.splitManager = requireNonNull(splitManager, "splitManager is null");
-        this.recordSetProvider = requireNonNull(recordSetProvider, "recordSetProvider is null");
+        this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
         this.pageSinkProvider = requireNonNull(pageSinkProvider, "pageSinkProvider is null");
+        this.procedures = ImmutableSet.copyOf(requireNonNull(procedures, "procedures is null"));
     }
 
     @Override
@@ -72,9 +79,9 @@ public class OpenGeminiConnector
     }
 
     @Override
-    public ConnectorRecordSetProvider getRecordSetProvider()
+    public ConnectorPageSourceProvider getPageSourceProvider()
     {
-        return recordSetProvider;
+        return pageSourceProvider;
     }
 
     @Override
@@ -83,6 +90,12 @@ public class OpenGeminiConnector
         return pageSinkProvider;
     }
 
+    @Override
+    public Set<Procedure> getProcedures()
+    {
+        return procedures;
+    }
+
     @Override
     public final void shutdown()
     {
@@ -0,0 +1,307 @@
+/* Copyright 2024 Huawei Cloud Computing Technologies Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.opengemini;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import io.trino.spi.Page;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.DictionaryBlock;
+import io.trino.spi.block.RunLengthEncodedBlock;
+import io.trino.spi.block.VariableWidthBlock;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.FIELD_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.TAG_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.TIME_KIND;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.BooleanType.BOOLEAN;
+import static io.trino.spi.type.DateTimeEncoding.unpackMillisUtc;
+import static io.trino.spi.type.DoubleType.DOUBLE;
+import static io.trino.spi.type.Timestamps.NANOSECONDS_PER_MILLISECOND;
+import static io.trino.spi.type.Timestamps.PICOSECONDS_PER_NANOSECOND;
+import static io.trino.spi.type.Timestamps.roundDiv;
+import static java.lang.Double.longBitsToDouble;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Objects.requireNonNull;
+
+// encodes rows of pages into line protocol, reading values from blocks without building points
+public class OpenGeminiLineProtocolEncoder
+{
+    private static final byte[] TRUE = "true".getBytes(US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(US_ASCII);
+
+    // types of fields, resolved once per channel, so that encoding rows switches on an int instead of dispatching on types or encoders
+    private static final int BIGINT_FIELD = 0;
+    private static final int DOUBLE_FIELD = 1;
+    private static final int BOOLEAN_FIELD = 2;
+    private static final int VARCHAR_FIELD = 3;
+
+    // bytes escaped by a backslash: commas and spaces in measurement, equal signs as well in tag keys, tag values and field keys,
+    // double quotes and backslashes in string field values
+    private static final boolean[] MEASUREMENT_ESCAPES = escapes(", ");
+    private static final boolean[] KEY_ESCAPES = escapes(", =");
+    private static final boolean[] STRING_ESCAPES = escapes("\"\\");
+
+    private final Slice measurement;
+    private final int timeChannel;
+    // tags are sorted by key, which is the order openGemini indexes series in
+    private final int[] tagChannels;
+    private final Slice[] tagKeys;
+    private final int[] fieldChannels;
+    private final Slice[] fieldKeys;
+    private final int[] fieldTypes;
+    private final byte[] digits = new byte[20];
+    // reused for the characters of doubles, appending a double to a builder does not allocate a string
+    private final StringBuilder doubleChars = new StringBuilder(32);
+
+    // blocks of the page being encoded, loaded once per page instead of once per row
+    private Block timeBlock;
+    private final Block[] tagBlocks;
+    private final Block[] fieldBlocks;
+
+    public OpenGeminiLineProtocolEncoder(String tableName, List<String> columnNames, List<Type> columnTypes, List<String> columnKinds)
+    {
+        requireNonNull(tableName, "tableName is null");
+        requireNonNull(columnNames, "columnNames is null");
+        requireNonNull(columnTypes, "columnTypes is null");
+        requireNonNull(columnKinds, "columnKinds is null");
+        this.measurement = escape(utf8Slice(tableName), MEASUREMENT_ESCAPES);
+        this.timeChannel = columnKinds.indexOf(TIME_KIND);
+        this.tagChannels = IntStream.range(0, columnNames.size())
+                .filter(channel -> columnKinds.get(channel).equals(TAG_KIND))
+                .boxed()
+                .sorted(Comparator.comparing(columnNames::get))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.tagKeys = IntStream.of(tagChannels).mapToObj(channel -> escape(utf8Slice(columnNames.get(channel)), KEY_ESCAPES)).toArray(Slice[]::new);
+        this.fieldChannels = IntStream.range(0, columnNames.size())
+                .filter(channel -> columnKinds.get(channel).equals(FIELD_KIND))
+                .toArray();
+        this.fieldKeys = IntStream.of(fieldChannels).mapToObj(channel -> escape(utf8Slice(columnNames.get(channel)), KEY_ESCAPES)).toArray(Slice[]::new);
+        this.fieldTypes = IntStream.of(fieldChannels).map(channel -> fieldType(columnTypes.get(channel))).toArray();
+        this.tagBlocks = new Block[tagChannels.length];
+        this.fieldBlocks = new Block[fieldChannels.length];
+    }
+
+    private static int fieldType(Type type)
+    {
+        if (type instanceof VarcharType) {
+            return VARCHAR_FIELD;
+        }
+        if (BIGINT.equals(type)) {
+            return BIGINT_FIELD;
+        }
+        if (DOUBLE.equals(type)) {
+            return DOUBLE_FIELD;
+        }
+        if (BOOLEAN.equals(type)) {
+            return BOOLEAN_FIELD;
+        }
+        throw new UnsupportedOperationException("unsupported type: " + type);
+    }
+
+    public void encode(Page page, SliceOutput output)
+    {
+        startPage(page);
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            encodeRow(position, output);
+        }
+        finishPage();
+    }
+
+    // rows of the page are encoded by encodeRow until finishPage
+    public void startPage(Page page)
+    {
+        timeBlock = timeChannel >= 0 ? page.getBlock(timeChannel).getLoadedBlock() : null;
+        for (int i = 0; i < tagChannels.length; i++) {
+            tagBlocks[i] = page.getBlock(tagChannels[i]).getLoadedBlock();
+        }
+        for (int i = 0; i < fieldChannels.length; i++) {
+            fieldBlocks[i] = page.getBlock(fieldChannels[i]).getLoadedBlock();
+        }
+    }
+
+    // the blocks are not retained after the page is encoded
+    public void finishPage()
+    {
+        timeBlock = null;
+        Arrays.fill(tagBlocks, null);
+        Arrays.fill(fieldBlocks, null);
+    }
+
+    // measurement[,tag=value...] field=value[,field=value...] timestamp
+    public void encodeRow(int position, SliceOutput output)
+    {
+        output.writeBytes(measurement);
+        for (int i = 0; i < tagBlocks.length; i++) {
+            Block block = tagBlocks[i];
+            // empty tag values are not allowed
+            if (block.isNull(position) || block.getSliceLength(position) == 0) {
+                continue;
+            }
+            output.writeByte(',');
+            output.writeBytes(tagKeys[i]);
+            output.writeByte('=');
+            writeVarchar(output, block, position, KEY_ESCAPES);
+        }
+
+        boolean hasField = false;
+        for (int i = 0; i < fieldBlocks.length; i++) {
+            Block block = fieldBlocks[i];
+            if (block.isNull(position)) {
+                continue;
+            }
+            int fieldType = fieldTypes[i];
+            // NaN and infinity can not be stored in openGemini
+            if (fieldType == DOUBLE_FIELD && !Double.isFinite(longBitsToDouble(block.getLong(position, 0)))) {
+                continue;
+            }
+            output.writeByte(hasField ? ',' : ' ');
+            output.writeBytes(fieldKeys[i]);
+            output.writeByte('=');
+            switch (fieldType) {
+                case BIGINT_FIELD -> {
+                    writeLong(output, block.getLong(position, 0));
+                    output.writeByte('i');
+                }
+                case DOUBLE_FIELD -> writeDouble(output, longBitsToDouble(block.getLong(position, 0)));
+                case BOOLEAN_FIELD -> output.writeBytes(block.getByte(position, 0) != 0 ? TRUE : FALSE);
+                default -> {
+                    output.writeByte('"');
+                    writeVarchar(output, block, position, STRING_ESCAPES);
+                    output.writeByte('"');
+                }
+            }
+            hasField = true;
+        }
+        if (!hasField) {
+            throw new RuntimeException("point of " + measurement.toStringUtf8() + " must have at least one field");
+        }
+
+        output.writeByte(' ');
+        if (timeBlock != null && !timeBlock.isNull(position)) {
+            // timestamp(9) with time zone is stored as packed epoch millis and picos of milli
+            long epochMillis = unpackMillisUtc(timeBlock.getLong(position, 0));
+            int picosOfMilli = timeBlock.getInt(position, SIZE_OF_LONG);
+            writeLong(output, epochMillis * NANOSECONDS_PER_MILLISECOND + roundDiv(picosOfMilli, PICOSECONDS_PER_NANOSECOND));
+        }
+        else {
+            writeLong(output, currentTimeNanos());
+        }
+        output.writeByte('\n');
+    }
+
+    // the bytes are copied from the slice under the block, without allocating a slice per value
+    private static void writeVarchar(SliceOutput output, Block block, int position, boolean[] escapes)
+    {
+        if (block instanceof DictionaryBlock dictionary) {
+            position = dictionary.getId(position);
+            block = dictionary.getDictionary();
+        }
+        else if (block instanceof RunLengthEncodedBlock runLength) {
+            position = 0;
+            block = runLength.getValue();
+        }
+        int length = block.getSliceLength(position);
+        if (block instanceof VariableWidthBlock variableWidth) {
+            writeEscaped(output, variableWidth.getRawSlice(), variableWidth.getRawSliceOffset(position), length, escapes);
+        }
+        else {
+            writeEscaped(output, block.getSlice(position, 0, length), 0, length, escapes);
+        }
+    }
+
+    // write the decimal digits without allocating a string
+    private void writeLong(SliceOutput output, long value)
+    {
+        if (value == Long.MIN_VALUE) {
+            output.writeBytes(Long.toString(value).getBytes(US_ASCII));
+            return;
+        }
+        if (value < 0) {
+            output.writeByte('-');
+            value = -value;
+        }
+        int index = digits.length;
+        do {
+            digits[--index] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        while (value > 0);
+        output.writeBytes(digits, index, digits.length - index);
+    }
+
+    // integral doubles are written as digits, which openGemini reads as a float without the i suffix
+    private void writeDouble(SliceOutput output, double value)
+    {
+        if (value == (long) value && Math.abs(value) < (1L << 53)) {
+            writeLong(output, (long) value);
+            return;
+        }
+        doubleChars.setLength(0);
+        doubleChars.append(value);
+        for (int i = 0; i < doubleChars.length(); i++) {
+            output.writeByte(doubleChars.charAt(i));
+        }
+    }
+
+    private static long currentTimeNanos()
+    {
+        Instant now = Instant.now();
+        return now.toEpochMilli() * NANOSECONDS_PER_MILLISECOND + now.getNano() % NANOSECONDS_PER_MILLISECOND;
+    }
+
+    // the runs between escaped bytes are copied at once
+    private static void writeEscaped(SliceOutput output, Slice value, int offset, int length, boolean[] escapes)
+    {
+        int start = offset;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (escapes[value.getByte(i) & 0xFF]) {
+                output.writeBytes(value, start, i - start);
+                output.writeByte('\\');
+                start = i;
+            }
+        }
+        output.writeBytes(value, start, end - start);
+    }
+
+    private static Slice escape(Slice value, boolean[] escapes)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(value.length());
+        writeEscaped(output, value, 0, value.length(), escapes);
+        return output.copySlice();
+    }
+
+    private static boolean[] escapes(String characters)
+    {
+        boolean[] escapes = new boolean[256];
+        for (int i = 0; i < characters.length(); i++) {
+            escapes[characters.charAt(i)] = true;
+        }
+        return escapes;
+    }
+}
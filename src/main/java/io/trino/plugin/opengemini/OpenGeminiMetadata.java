@@ -20,6 +20,9 @@ import com.google.common.collect.ImmutableSet;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
 import io.trino.spi.TrinoException;
+import io.trino.spi.connector.AggregateFunction;
+import io.trino.spi.connector.AggregationApplicationResult;
+import io.trino.spi.connector.Assignment;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ColumnMetadata;
 import io.trino.spi.connector.ConnectorInsertTableHandle;
@@ -27,33 +30,53 @@ import io.trino.spi.connector.ConnectorMetadata;
 import io.trino.spi.connector.ConnectorOutputMetadata;
 import io.trino.spi.connector.ConnectorSession;
 import io.trino.spi.connector.ConnectorTableHandle;
+import io.trino.spi.connector.ConnectorTableLayout;
 import io.trino.spi.connector.ConnectorTableMetadata;
 import io.trino.spi.connector.Constraint;
 import io.trino.spi.connector.ConstraintApplicationResult;
 import io.trino.spi.connector.LimitApplicationResult;
+import io.trino.spi.connector.ProjectionApplicationResult;
 import io.trino.spi.connector.RetryMode;
 import io.trino.spi.connector.SchemaTableName;
 import io.trino.spi.connector.SchemaTablePrefix;
 import io.trino.spi.connector.SortItem;
+import io.trino.spi.connector.SortOrder;
 import io.trino.spi.connector.TableColumnsMetadata;
 import io.trino.spi.connector.TableNotFoundException;
 import io.trino.spi.connector.TopNApplicationResult;
+import io.trino.spi.expression.ConnectorExpression;
+import io.trino.spi.expression.Constant;
+import io.trino.spi.expression.Variable;
+import io.trino.spi.predicate.Range;
 import io.trino.spi.predicate.TupleDomain;
 import io.trino.spi.statistics.ComputedStatistics;
+import io.trino.spi.statistics.TableStatistics;
 import io.trino.spi.type.Type;
 
 import javax.inject.Inject;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.trino.plugin.base.expression.ConnectorExpressions.and;
+import static io.trino.plugin.base.expression.ConnectorExpressions.extractConjuncts;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.AGGREGATE_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.FIELD_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.TAG_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.TIME_BUCKET_KIND;
 import static io.trino.spi.StandardErrorCode.NOT_SUPPORTED;
 import static io.trino.spi.connector.RetryMode.NO_RETRIES;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.DoubleType.DOUBLE;
 import static java.util.Objects.requireNonNull;
 
 public class OpenGeminiMetadata
@@ -61,6 +84,9 @@ public class OpenGeminiMetadata
 {
     private static final Logger log = Logger.get(OpenGeminiMetadata.class);
 
+    private static final String AGGREGATE_COLUMN_PREFIX = "_opengemini_agg_";
+    private static final String TIME_BUCKET_COLUMN_PREFIX = "_opengemini_time_";
+
     private final OpenGeminiSession openGeminiSession;
 
     @Inject
@@ -138,12 +164,7 @@ public class OpenGeminiMetadata
     @Override
     public Map<String, ColumnHandle> getColumnHandles(ConnectorSession session, ConnectorTableHandle tableHandle)
     {
-        OpenGeminiTableHandle openGeminiTableHandle = (OpenGeminiTableHandle) tableHandle;
-        OpenGeminiTable table = openGeminiSession.getTable(openGeminiTableHandle.getSchemaName(), openGeminiTableHandle.getTableName());
-        if (table == null) {
-            throw new TableNotFoundException(openGeminiTableHandle.toSchemaTableName());
-        }
-
+        OpenGeminiTable table = getTable((OpenGeminiTableHandle) tableHandle);
         ImmutableMap.Builder<String, ColumnHandle> columnHandles = ImmutableMap.builder();
         for (OpenGeminiColumn column : table.getColumns()) {
             columnHandles.put(column.getName(), new OpenGeminiColumnHandle(column.getName(), column.getType(), column.getKind()));
@@ -211,26 +232,59 @@ public class OpenGeminiMetadata
     {
         OpenGeminiTableHandle tableHandle = (OpenGeminiTableHandle) handle;
         long oldLimit = tableHandle.getLimit();
-        if (oldLimit == limit) {
+        // limit of openGemini applies to each series of an aggregation
+        if (oldLimit == limit || tableHandle.isAggregated()) {
             return Optional.empty();
         }
         OpenGeminiTableHandle newHandle = tableHandle.withLimit(limit);
         return Optional.of(new LimitApplicationResult<>(newHandle, true, false));
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        OpenGeminiTableHandle handle = (OpenGeminiTableHandle) tableHandle;
+        if (handle.isAggregated()) {
+            // statistics of the measurement do not describe the aggregated rows
+            return TableStatistics.empty();
+        }
+        return openGeminiSession.getTableStatistics(handle.getSchemaName(), handle.getRpName(), handle.getTableName());
+    }
+
     @Override
     public Optional<ConstraintApplicationResult<ConnectorTableHandle>> applyFilter(ConnectorSession session, ConnectorTableHandle tableHandle, Constraint constraint)
     {
         OpenGeminiTableHandle handle = (OpenGeminiTableHandle) tableHandle;
+        if (handle.isAggregated() || handle.getLimit() > 0) {
+            // filter on the result of an aggregation, a limit or a top-n can not be pushed down into where clause,
+            // which is applied before them
+            return Optional.empty();
+        }
+        // columns computed from the points, such as time bucket, and null conditions of fields can not be filtered in where clause
+        TupleDomain<ColumnHandle> summary = constraint.getSummary();
+        TupleDomain<ColumnHandle> remainingFilter = summary.filter((column, domain) -> !OpenGeminiQLUtils.isExpressibleDomain(column, domain));
         TupleDomain<ColumnHandle> oldDomain = handle.getConstraint();
-        TupleDomain<ColumnHandle> newDomain = oldDomain.intersect(constraint.getSummary());
-        if (oldDomain.equals(newDomain)) {
+        TupleDomain<ColumnHandle> newDomain = oldDomain.intersect(summary.filter(OpenGeminiQLUtils::isExpressibleDomain));
+
+        // regex matching on strings is pushed down as conditions, the inexact ones are still evaluated by trino
+        Set<String> newConditions = new LinkedHashSet<>(handle.getConditions());
+        ImmutableList.Builder<ConnectorExpression> remainingExpressions = ImmutableList.builder();
+        for (ConnectorExpression conjunct : extractConjuncts(constraint.getExpression())) {
+            Optional<String> condition = OpenGeminiQLUtils.regexCondition(conjunct, constraint.getAssignments());
+            condition.ifPresent(newConditions::add);
+            if (condition.isEmpty() || !OpenGeminiQLUtils.isExactRegexCondition(conjunct)) {
+                remainingExpressions.add(conjunct);
+            }
+        }
+        if (oldDomain.equals(newDomain) && newConditions.size() == handle.getConditions().size()) {
             // Nothing has changed, return empty Option
             return Optional.empty();
         }
 
-        OpenGeminiTableHandle newHandle = handle.withConstraint(newDomain);
-        return Optional.of(new ConstraintApplicationResult<>(newHandle, TupleDomain.all(), false));
+        OpenGeminiTableHandle newHandle = handle.withConstraint(newDomain, ImmutableList.copyOf(newConditions));
+        List<ConnectorExpression> remaining = remainingExpressions.build();
+        ConnectorExpression remainingExpression = remaining.isEmpty() ? Constant.TRUE : and(remaining);
+        return Optional.of(new ConstraintApplicationResult<>(newHandle, remainingFilter, remainingExpression, false));
     }
 
     @Override
@@ -241,11 +295,22 @@ public class OpenGeminiMetadata
             List<SortItem> sortItems,
             Map<String, ColumnHandle> assignments)
     {
-        // only support order by time; and order by time default
-        if (sortItems.size() != 1 || !sortItems.get(0).getName().equals("time")) {
+        if (sortItems.size() != 1) {
             return Optional.empty();
         }
         OpenGeminiTableHandle tableHandle = (OpenGeminiTableHandle) handle;
+        if (tableHandle.isAggregated() || tableHandle.getSortColumn().isPresent()) {
+            return Optional.empty();
+        }
+        SortItem sortItem = sortItems.get(0);
+        OpenGeminiColumnHandle sortColumn = (OpenGeminiColumnHandle) assignments.get(sortItem.getName());
+        if (sortColumn != null && sortColumn.getColumnKind().equals(FIELD_KIND)) {
+            return applyFieldTopN(tableHandle, topNCount, sortItem, sortColumn);
+        }
+        // only support order by time; and order by time default
+        if (!sortItem.getName().equals("time")) {
+            return Optional.empty();
+        }
         if (tableHandle.getLimit() == topNCount && tableHandle.getAscending() == sortItems.get(0).getSortOrder().isAscending()) {
             return Optional.empty();
         }
@@ -253,6 +318,150 @@ public class OpenGeminiMetadata
         return Optional.of(new TopNApplicationResult<>(newHandle, true, true));
     }
 
+    // top-n of a numeric field is computed by TOP() or BOTTOM() over the raw points of each split, and completed by trino.
+    // points without the field are not returned, so nulls must sort last, and the page source falls back to the whole scan
+    // when there are fewer points than the limit
+    private static Optional<TopNApplicationResult<ConnectorTableHandle>> applyFieldTopN(OpenGeminiTableHandle tableHandle, long topNCount, SortItem sortItem, OpenGeminiColumnHandle sortColumn)
+    {
+        Type type = sortColumn.getColumnType();
+        boolean numeric = BIGINT.equals(type) || DOUBLE.equals(type);
+        SortOrder sortOrder = sortItem.getSortOrder();
+        boolean nullsLast = sortOrder == SortOrder.ASC_NULLS_LAST || sortOrder == SortOrder.DESC_NULLS_LAST;
+        // the limit of a raw scan would take the points before sorting
+        if (!numeric || !nullsLast || tableHandle.getLimit() > 0 || topNCount <= 0 || topNCount >= Integer.MAX_VALUE) {
+            return Optional.empty();
+        }
+        OpenGeminiTableHandle newHandle = tableHandle.withLimit(topNCount).withSort(Optional.of(sortColumn), sortOrder.isAscending());
+        return Optional.of(new TopNApplicationResult<>(newHandle, false, false));
+    }
+
+    @Override
+    public Optional<ProjectionApplicationResult<ConnectorTableHandle>> applyProjection(
+            ConnectorSession session,
+            ConnectorTableHandle handle,
+            List<ConnectorExpression> projections,
+            Map<String, ColumnHandle> assignments)
+    {
+        OpenGeminiTableHandle tableHandle = (OpenGeminiTableHandle) handle;
+        if (tableHandle.isAggregated()) {
+            return Optional.empty();
+        }
+
+        // replace date_trunc(unit, time) with a time bucket column, so that it can be grouped by time in openGemini
+        boolean changed = false;
+        ImmutableList.Builder<ConnectorExpression> newProjections = ImmutableList.builder();
+        Map<String, Assignment> newAssignments = new LinkedHashMap<>();
+        assignments.forEach((name, column) -> newAssignments.put(name, new Assignment(name, column, ((OpenGeminiColumnHandle) column).getColumnType())));
+        for (ConnectorExpression projection : projections) {
+            Optional<String> interval = OpenGeminiQLUtils.timeBucketInterval(projection, assignments);
+            if (interval.isEmpty()) {
+                newProjections.add(projection);
+                continue;
+            }
+            String columnName = TIME_BUCKET_COLUMN_PREFIX + interval.get();
+            OpenGeminiColumnHandle column = new OpenGeminiColumnHandle(columnName, projection.getType(), TIME_BUCKET_KIND, interval);
+            newProjections.add(new Variable(columnName, projection.getType()));
+            newAssignments.put(columnName, new Assignment(columnName, column, projection.getType()));
+            changed = true;
+        }
+
+        // prune the columns not referenced by the projections from the select list
+        Set<OpenGeminiColumnHandle> referencedColumns = new HashSet<>();
+        projections.forEach(projection -> collectColumns(projection, assignments, referencedColumns));
+        List<OpenGeminiColumnHandle> projectedColumns = OpenGeminiQLUtils.projectedColumns(referencedColumns, getTable(tableHandle));
+        if (!changed && projectedColumns.equals(tableHandle.getProjectedColumns())) {
+            return Optional.empty();
+        }
+        return Optional.of(new ProjectionApplicationResult<>(tableHandle.withProjectedColumns(projectedColumns), newProjections.build(), ImmutableList.copyOf(newAssignments.values()), false));
+    }
+
+    @Override
+    public Optional<AggregationApplicationResult<ConnectorTableHandle>> applyAggregation(
+            ConnectorSession session,
+            ConnectorTableHandle handle,
+            List<AggregateFunction> aggregates,
+            Map<String, ColumnHandle> assignments,
+            List<List<ColumnHandle>> groupingSets)
+    {
+        OpenGeminiTableHandle tableHandle = (OpenGeminiTableHandle) handle;
+        // aggregation is pushed down once, and the limit or order of raw points would change its result
+        if (tableHandle.isAggregated() || tableHandle.getLimit() > 0 || !tableHandle.getAscending() || aggregates.isEmpty() || groupingSets.size() != 1) {
+            return Optional.empty();
+        }
+
+        // only group by tags and time buckets is supported by openGemini
+        List<OpenGeminiColumnHandle> groupingColumns = groupingSets.get(0).stream().map(OpenGeminiColumnHandle.class::cast).toList();
+        if (groupingColumns.stream().anyMatch(column -> !column.getColumnKind().equals(TAG_KIND) && !column.getColumnKind().equals(TIME_BUCKET_KIND))) {
+            return Optional.empty();
+        }
+        long timeBuckets = groupingColumns.stream().filter(column -> column.getColumnKind().equals(TIME_BUCKET_KIND)).count();
+        if (timeBuckets > 1) {
+            return Optional.empty();
+        }
+        if (timeBuckets == 1) {
+            // group by time needs a closed time range, otherwise openGemini takes now as the upper bound
+            Optional<Range> timeSpan = OpenGeminiQLUtils.timeSpan(tableHandle.getConstraint());
+            if (timeSpan.isEmpty() || timeSpan.get().isLowUnbounded() || timeSpan.get().isHighUnbounded()) {
+                return Optional.empty();
+            }
+        }
+
+        ImmutableList.Builder<OpenGeminiColumnHandle> aggregateColumns = ImmutableList.builder();
+        ImmutableList.Builder<ConnectorExpression> projections = ImmutableList.builder();
+        ImmutableList.Builder<Assignment> resultAssignments = ImmutableList.builder();
+        for (int i = 0; i < aggregates.size(); i++) {
+            Optional<String> expression = OpenGeminiQLUtils.aggregateExpression(aggregates.get(i), assignments);
+            if (expression.isEmpty()) {
+                return Optional.empty();
+            }
+            String columnName = AGGREGATE_COLUMN_PREFIX + i;
+            Type type = aggregates.get(i).getOutputType();
+            OpenGeminiColumnHandle column = new OpenGeminiColumnHandle(columnName, type, AGGREGATE_KIND, expression);
+            aggregateColumns.add(column);
+            projections.add(new Variable(columnName, type));
+            resultAssignments.add(new Assignment(columnName, column, type));
+        }
+
+        OpenGeminiTableHandle newHandle = tableHandle.withAggregation(aggregateColumns.build(), groupingColumns);
+        Map<ColumnHandle, ColumnHandle> groupingColumnMapping = groupingColumns.stream()
+                .collect(toImmutableMap(column -> column, column -> column));
+        return Optional.of(new AggregationApplicationResult<>(newHandle, projections.build(), resultAssignments.build(), groupingColumnMapping, false));
+    }
+
+    private OpenGeminiTable getTable(OpenGeminiTableHandle tableHandle)
+    {
+        OpenGeminiTable table = openGeminiSession.getTable(tableHandle.getSchemaName(), tableHandle.getTableName());
+        if (table == null) {
+            throw new TableNotFoundException(tableHandle.toSchemaTableName());
+        }
+        return table;
+    }
+
+    private static void collectColumns(ConnectorExpression expression, Map<String, ColumnHandle> assignments, Set<OpenGeminiColumnHandle> columns)
+    {
+        if (expression instanceof Variable variable) {
+            columns.add((OpenGeminiColumnHandle) assignments.get(variable.getName()));
+            return;
+        }
+        expression.getChildren().forEach(child -> collectColumns(child, assignments, columns));
+    }
+
+    @Override
+    public Optional<ConnectorTableLayout> getInsertLayout(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        OpenGeminiTableHandle handle = (OpenGeminiTableHandle) tableHandle;
+        OpenGeminiTable table = openGeminiSession.getTable(handle.getSchemaName(), handle.getTableName());
+        // rows are hashed on the tags, so that all points of a series go to the same writer
+        List<String> tagColumns = table.getColumns().stream()
+                .filter(column -> column.getKind().equals(TAG_KIND))
+                .map(OpenGeminiColumn::getName)
+                .toList();
+        if (tagColumns.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new ConnectorTableLayout(tagColumns));
+    }
+
     @Override
     public ConnectorInsertTableHandle beginInsert(ConnectorSession session, ConnectorTableHandle tableHandle, List<ColumnHandle> insertedColumns, RetryMode retryMode)
     {
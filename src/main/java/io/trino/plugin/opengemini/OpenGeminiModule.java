@@ -17,12 +17,15 @@ package io.trino.plugin.opengemini;
 import com.google.inject.Binder;
 import com.google.inject.Module;
 import com.google.inject.Scopes;
+import io.trino.spi.procedure.Procedure;
 import io.trino.spi.type.TypeManager;
 
+import static com.google.inject.multibindings.Multibinder.newSetBinder;
 import static io.airlift.configuration.ConfigBinder.configBinder;
 import static io.airlift.json.JsonCodec.listJsonCodec;
 import static io.airlift.json.JsonCodecBinder.jsonCodecBinder;
 import static java.util.Objects.requireNonNull;
+import static org.weakref.jmx.guice.ExportBinder.newExporter;
 
 public class OpenGeminiModule
         implements Module
@@ -43,11 +46,15 @@ public class OpenGeminiModule
         binder.bind(OpenGeminiMetadata.class).in(Scopes.SINGLETON);
         binder.bind(OpenGeminiSession.class).in(Scopes.SINGLETON);
         binder.bind(OpenGeminiSplitManager.class).in(Scopes.SINGLETON);
-        binder.bind(OpenGeminiRecordSetProvider.class).in(Scopes.SINGLETON);
+        binder.bind(OpenGeminiPageSourceProvider.class).in(Scopes.SINGLETON);
         binder.bind(OpenGeminiPageSinkProvider.class).in(Scopes.SINGLETON);
 
         configBinder(binder).bindConfig(OpenGeminiConfig.class);
 
+        newSetBinder(binder, Procedure.class).addBinding().toProvider(OpenGeminiSelectIntoProcedure.class).in(Scopes.SINGLETON);
+
+        newExporter(binder).export(OpenGeminiSession.class).withGeneratedName();
+
         jsonCodecBinder(binder).bindMapJsonCodec(String.class, listJsonCodec(OpenGeminiTable.class));
     }
 }
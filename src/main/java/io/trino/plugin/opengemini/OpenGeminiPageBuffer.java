@@ -0,0 +1,211 @@
+/* Copyright 2024 Huawei Cloud Computing Technologies Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.opengemini;
+
+import io.airlift.log.Logger;
+import io.airlift.units.Duration;
+import io.trino.spi.Page;
+import okhttp3.Call;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// pages are pushed by the http callback decoding the response and polled by the page source without blocking
+public class OpenGeminiPageBuffer
+{
+    private static final Logger log = Logger.get(OpenGeminiPageBuffer.class);
+
+    private static final CompletableFuture<?> NOT_BLOCKED = CompletableFuture.completedFuture(null);
+
+    private final Queue<Page> queue = new ConcurrentLinkedQueue<>();
+    private final long pollTimeoutNanos;
+    private final long maxBufferBytes;
+    private final OpenGeminiScanStats stats = new OpenGeminiScanStats();
+
+    // guarded by this
+    private CompletableFuture<?> blocked;
+    private Call call;
+    // the poll timeout starts when the response arrives, until then the query is bounded by the timeouts of the http client
+    private boolean responded;
+    private long lastPageNanos = System.nanoTime();
+    // retained size of the pages in the queue
+    private long bufferedBytes;
+
+    private volatile boolean done;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+
+    public OpenGeminiPageBuffer(Duration timeout, long maxBufferBytes)
+    {
+        this.pollTimeoutNanos = timeout.roundTo(NANOSECONDS);
+        this.maxBufferBytes = maxBufferBytes;
+    }
+
+    public synchronized void setCall(Call call)
+    {
+        this.call = requireNonNull(call, "call is null");
+    }
+
+    // called by the http callback when the response arrives, before decoding it
+    public void responseReceived()
+    {
+        synchronized (this) {
+            responded = true;
+        }
+        // wake up the page source, so that it waits with the poll timeout
+        signal();
+    }
+
+    // called by the http callback for each decoded page
+    public void add(Page page)
+    {
+        long pageBytes = page.getRetainedSizeInBytes();
+        stats.addDecodedRows(page.getPositionCount());
+        long start = System.nanoTime();
+        synchronized (this) {
+            // block the http callback, which pauses reading the response body until buffered pages are consumed,
+            // one page is always accepted even if it is larger than the buffer
+            while (!closed && bufferedBytes > 0 && bufferedBytes + pageBytes > maxBufferBytes) {
+                try {
+                    wait();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+            stats.addBackpressureNanos(System.nanoTime() - start);
+            if (closed) {
+                return;
+            }
+            bufferedBytes += pageBytes;
+            queue.add(page);
+        }
+        signal();
+    }
+
+    // all pages have been added
+    public void finish()
+    {
+        done = true;
+        signal();
+    }
+
+    public void fail(Throwable throwable)
+    {
+        // the call fails when it is cancelled by close
+        if (closed) {
+            return;
+        }
+        log.error(throwable, "chunk query failed");
+        failure = throwable;
+        done = true;
+        signal();
+    }
+
+    private void signal()
+    {
+        CompletableFuture<?> future;
+        synchronized (this) {
+            lastPageNanos = System.nanoTime();
+            future = blocked;
+            blocked = null;
+        }
+        if (future != null) {
+            future.complete(null);
+        }
+    }
+
+    // completes when a page arrives, the query ends, or the poll timeout expires
+    public synchronized CompletableFuture<?> isBlocked()
+    {
+        if (done || !queue.isEmpty()) {
+            return NOT_BLOCKED;
+        }
+        if (blocked == null) {
+            blocked = new CompletableFuture<>();
+            if (responded) {
+                long remainingNanos = Math.max(pollTimeoutNanos - (System.nanoTime() - lastPageNanos), 0);
+                blocked.completeOnTimeout(null, remainingNanos, NANOSECONDS);
+            }
+            long start = System.nanoTime();
+            blocked.whenComplete((result, throwable) -> stats.addWaitNanos(System.nanoTime() - start));
+        }
+        return blocked;
+    }
+
+    // all pages have been received and polled
+    public boolean isFinished()
+    {
+        // done must be read before the queue, since the last page is added before done is set
+        return done && queue.isEmpty() && failure == null;
+    }
+
+    // return one page without waiting, otherwise return null
+    public Page poll()
+    {
+        Page page;
+        long waitedNanos;
+        boolean timed;
+        synchronized (this) {
+            page = queue.poll();
+            if (page != null) {
+                bufferedBytes -= page.getRetainedSizeInBytes();
+                notifyAll();
+                return page;
+            }
+            waitedNanos = System.nanoTime() - lastPageNanos;
+            timed = responded;
+        }
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+        if (!done && timed && waitedNanos > pollTimeoutNanos) {
+            // not to take a stalled query as finished, which would return partial results
+            throw new RuntimeException("no chunk received from openGemini in " + new Duration(waitedNanos, NANOSECONDS).convertToMostSuccinctTimeUnit());
+        }
+        return null;
+    }
+
+    public OpenGeminiScanStats getStats()
+    {
+        return stats;
+    }
+
+    public synchronized long getBufferedBytes()
+    {
+        return bufferedBytes;
+    }
+
+    public void close()
+    {
+        closed = true;
+        Call httpCall;
+        synchronized (this) {
+            queue.clear();
+            bufferedBytes = 0;
+            httpCall = call;
+            // wake up the http callback waiting for buffer space
+            notifyAll();
+        }
+        if (!done && httpCall != null) {
+            httpCall.cancel();
+        }
+    }
+}
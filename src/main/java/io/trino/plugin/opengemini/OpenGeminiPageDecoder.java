@@ -0,0 +1,320 @@
+/* Copyright 2024 Huawei Cloud Computing Technologies Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.opengemini;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.airlift.slice.Slice;
+import io.airlift.units.Duration;
+import io.trino.spi.Page;
+import io.trino.spi.PageBuilder;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NUMBER_INT;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.TIME_BUCKET_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiQLUtils.fromEpochNanos;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.BooleanType.BOOLEAN;
+import static io.trino.spi.type.DoubleType.DOUBLE;
+import static io.trino.spi.type.TimestampWithTimeZoneType.TIMESTAMP_TZ_NANOS;
+import static java.lang.Math.floorMod;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// decodes the json stream of a chunked query into pages directly, without building QueryResult and boxing every value
+public class OpenGeminiPageDecoder
+{
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    // PageBuilder is never full without any block, e.g. count(*), so bound the positions of one page
+    private static final int MAX_POSITIONS_PER_PAGE = 8192;
+    private static final int[] NO_CHANNELS = new int[0];
+
+    private final List<OpenGeminiColumnHandle> columnHandles;
+    private final Type[] types;
+    private final boolean globalAggregation;
+    private final PageBuilder pageBuilder;
+    // bucket width in nanos of each time bucket column, 0 for the others
+    private final long[] bucketNanos;
+
+    // the columns and tags only change between series, so resolve them once per series instead of once per cell
+    // channels of each column of the current series
+    private int[][] channelsByColumn = new int[0][];
+    // channels which are not in the columns of the current series, filled with tag values or null
+    private final boolean[] fromColumns;
+    private final Slice[] tagValues;
+
+    private long decodedPositions;
+
+    public OpenGeminiPageDecoder(List<OpenGeminiColumnHandle> columnHandles, boolean globalAggregation)
+    {
+        this.columnHandles = requireNonNull(columnHandles, "columnHandles is null");
+        this.globalAggregation = globalAggregation;
+        this.types = columnHandles.stream().map(OpenGeminiColumnHandle::getColumnType).toArray(Type[]::new);
+        this.pageBuilder = new PageBuilder(List.of(types));
+        this.bucketNanos = new long[columnHandles.size()];
+        for (int channel = 0; channel < columnHandles.size(); channel++) {
+            OpenGeminiColumnHandle column = columnHandles.get(channel);
+            if (column.getColumnKind().equals(TIME_BUCKET_KIND)) {
+                bucketNanos[channel] = Duration.valueOf(column.getExpression().orElseThrow()).roundTo(NANOSECONDS);
+            }
+        }
+        this.fromColumns = new boolean[columnHandles.size()];
+        this.tagValues = new Slice[columnHandles.size()];
+    }
+
+    // decode all chunks of the response, pages are emitted when they are full and at the end of every chunk
+    public void decode(InputStream input, Consumer<Page> output)
+            throws IOException
+    {
+        try (JsonParser parser = JSON_FACTORY.createParser(input)) {
+            while (parser.nextToken() != null) {
+                decodeChunk(parser, output);
+                flush(output);
+            }
+        }
+        if (globalAggregation && decodedPositions == 0) {
+            appendEmptyAggregation();
+            flush(output);
+        }
+    }
+
+    private void decodeChunk(JsonParser parser, Consumer<Page> output)
+            throws IOException
+    {
+        checkToken(parser, START_OBJECT);
+        while (parser.nextToken() == FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "results" -> {
+                    checkToken(parser, START_ARRAY);
+                    while (parser.nextToken() == START_OBJECT) {
+                        decodeResult(parser, output);
+                    }
+                }
+                case "error" -> throw new RuntimeException(parser.getText());
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void decodeResult(JsonParser parser, Consumer<Page> output)
+            throws IOException
+    {
+        while (parser.nextToken() == FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "series" -> {
+                    checkToken(parser, START_ARRAY);
+                    while (parser.nextToken() == START_OBJECT) {
+                        decodeSeries(parser, output);
+                    }
+                }
+                case "error" -> throw new RuntimeException(parser.getText());
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void decodeSeries(JsonParser parser, Consumer<Page> output)
+            throws IOException
+    {
+        Map<String, String> tags = new HashMap<>();
+        List<String> columns = null;
+        while (parser.nextToken() == FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "tags" -> {
+                    checkToken(parser, START_OBJECT);
+                    while (parser.nextToken() == FIELD_NAME) {
+                        String key = parser.getCurrentName();
+                        tags.put(key, parser.nextToken() == VALUE_NULL ? null : parser.getText());
+                    }
+                }
+                case "columns" -> {
+                    checkToken(parser, START_ARRAY);
+                    columns = new ArrayList<>();
+                    while (parser.nextToken() != END_ARRAY) {
+                        columns.add(parser.getText());
+                    }
+                }
+                case "values" -> {
+                    // openGemini writes columns and tags before values
+                    if (columns == null) {
+                        throw new RuntimeException("values of series come before its columns");
+                    }
+                    checkToken(parser, START_ARRAY);
+                    resolveSeries(columns, tags);
+                    while (parser.nextToken() == START_ARRAY) {
+                        decodeRow(parser, columns.size());
+                        if (pageBuilder.isFull() || pageBuilder.getPositionCount() >= MAX_POSITIONS_PER_PAGE) {
+                            flush(output);
+                        }
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void resolveSeries(List<String> columns, Map<String, String> tags)
+    {
+        List<List<Integer>> channels = new ArrayList<>();
+        columns.forEach(column -> channels.add(new ArrayList<>()));
+        for (int channel = 0; channel < columnHandles.size(); channel++) {
+            // time bucket is truncated from the time column
+            String name = bucketNanos[channel] > 0 ? "time" : columnHandles.get(channel).getColumnName();
+            int index = columns.indexOf(name);
+            fromColumns[channel] = index >= 0;
+            if (index >= 0) {
+                channels.get(index).add(channel);
+            }
+            String tag = tags.get(name);
+            // empty string is taken as null, such as an absent tag
+            tagValues[channel] = tag == null || tag.isEmpty() ? null : utf8Slice(tag);
+        }
+        channelsByColumn = channels.stream()
+                .map(list -> list.isEmpty() ? NO_CHANNELS : list.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    private void decodeRow(JsonParser parser, int columnCount)
+            throws IOException
+    {
+        pageBuilder.declarePosition();
+        int index = 0;
+        while (parser.nextToken() != END_ARRAY) {
+            int[] channels = index < channelsByColumn.length ? channelsByColumn[index] : NO_CHANNELS;
+            for (int channel : channels) {
+                appendValue(parser, channel);
+            }
+            parser.skipChildren();
+            index++;
+        }
+        if (index != columnCount) {
+            throw new RuntimeException("row has " + index + " values, but series has " + columnCount + " columns");
+        }
+        for (int channel = 0; channel < types.length; channel++) {
+            if (!fromColumns[channel]) {
+                BlockBuilder output = pageBuilder.getBlockBuilder(channel);
+                if (tagValues[channel] == null) {
+                    output.appendNull();
+                }
+                else {
+                    types[channel].writeSlice(output, tagValues[channel]);
+                }
+            }
+        }
+    }
+
+    private void appendValue(JsonParser parser, int channel)
+            throws IOException
+    {
+        BlockBuilder output = pageBuilder.getBlockBuilder(channel);
+        JsonToken token = parser.currentToken();
+        Type type = types[channel];
+        if (token == VALUE_NULL || token == START_OBJECT || token == START_ARRAY) {
+            output.appendNull();
+        }
+        else if (TIMESTAMP_TZ_NANOS.equals(type)) {
+            // time is epoch nanos as the query asks for, rfc3339 string otherwise
+            long epochNanos = token == VALUE_NUMBER_INT ? parser.getLongValue() : OpenGeminiQLUtils.toEpochNanos(parser.getText());
+            if (bucketNanos[channel] > 0) {
+                epochNanos -= floorMod(epochNanos, bucketNanos[channel]);
+            }
+            type.writeObject(output, fromEpochNanos(epochNanos));
+        }
+        else if (type instanceof VarcharType) {
+            String str = parser.getText();
+            // empty string is taken as null, such as an absent tag
+            if (str.isEmpty()) {
+                output.appendNull();
+            }
+            else {
+                type.writeSlice(output, utf8Slice(str));
+            }
+        }
+        else if (BIGINT.equals(type)) {
+            type.writeLong(output, parser.getValueAsLong());
+        }
+        else if (DOUBLE.equals(type)) {
+            type.writeDouble(output, parser.getValueAsDouble());
+        }
+        else if (BOOLEAN.equals(type)) {
+            type.writeBoolean(output, parser.getValueAsBoolean());
+        }
+        else {
+            throw new UnsupportedOperationException("unsupported type: " + type);
+        }
+    }
+
+    // result of aggregating no point: count is 0, and the others are null
+    private void appendEmptyAggregation()
+    {
+        pageBuilder.declarePosition();
+        for (int channel = 0; channel < columnHandles.size(); channel++) {
+            OpenGeminiColumnHandle column = columnHandles.get(channel);
+            BlockBuilder output = pageBuilder.getBlockBuilder(channel);
+            if (column.getExpression().map(expression -> expression.startsWith("count(")).orElse(false)) {
+                BIGINT.writeLong(output, 0);
+            }
+            else {
+                output.appendNull();
+            }
+        }
+    }
+
+    private void flush(Consumer<Page> output)
+    {
+        if (pageBuilder.isEmpty()) {
+            return;
+        }
+        Page page = pageBuilder.build();
+        pageBuilder.reset();
+        decodedPositions += page.getPositionCount();
+        output.accept(page);
+    }
+
+    private static void checkToken(JsonParser parser, JsonToken expected)
+    {
+        if (parser.currentToken() != expected) {
+            throw new RuntimeException("unexpected json token " + parser.currentToken() + ", expected " + expected);
+        }
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return pageBuilder.getRetainedSizeInBytes();
+    }
+}
@@ -15,146 +15,179 @@
 package io.trino.plugin.opengemini;
 
 import com.google.common.collect.ImmutableList;
-import io.airlift.log.Logger;
+import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
 import io.trino.spi.Page;
-import io.trino.spi.block.Block;
 import io.trino.spi.connector.ConnectorPageSink;
-import io.trino.spi.type.LongTimestampWithTimeZone;
-import io.trino.spi.type.Type;
-import io.trino.spi.type.VarcharType;
-import org.influxdb.dto.BatchPoints;
-import org.influxdb.dto.Point;
 
-import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
-
-import static io.trino.plugin.opengemini.OpenGeminiColumn.FIELD_KIND;
-import static io.trino.plugin.opengemini.OpenGeminiColumn.TAG_KIND;
-import static io.trino.plugin.opengemini.OpenGeminiColumn.TIME_KIND;
-import static io.trino.spi.type.BigintType.BIGINT;
-import static io.trino.spi.type.BooleanType.BOOLEAN;
-import static io.trino.spi.type.DoubleType.DOUBLE;
-import static io.trino.spi.type.TimestampWithTimeZoneType.TIMESTAMP_TZ_NANOS;
-import static io.trino.spi.type.Timestamps.NANOSECONDS_PER_MILLISECOND;
-import static io.trino.spi.type.Timestamps.PICOSECONDS_PER_NANOSECOND;
-import static io.trino.spi.type.Timestamps.roundDiv;
-import static java.util.concurrent.CompletableFuture.completedFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Math.toIntExact;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 public class OpenGeminiPageSink
         implements ConnectorPageSink
 {
-    private static final Logger log = Logger.get(OpenGeminiPageSink.class);
-
     private final OpenGeminiSession openGeminiSession;
     private final String schemaName;
     private final String rpName;
-    private final String tableName;
-    private final List<String> columnNames;
-    private final List<Type> columnTypes;
-    private final List<String> columnKinds;
-
-    public OpenGeminiPageSink(OpenGeminiSession session, OpenGeminiInsertTableHandle handler)
+    private final OpenGeminiLineProtocolEncoder encoder;
+    private final int maxInFlightWrites;
+    private final int maxBatchBytes;
+    private final int maxBatchPoints;
+    private final long batchLingerNanos;
+
+    // batches are cut by size, points and linger time, regardless of page boundaries
+    private DynamicSliceOutput batch;
+    private int batchPoints;
+    private long batchStartNanos;
+    private int lastBatchSize;
+    // batches which are encoded and wait for a free slot to be sent
+    private final Queue<Batch> pendingBatches = new ArrayDeque<>();
+    private long pendingBytes;
+    // writes which are sent and not checked yet
+    private final List<CompletableFuture<Void>> writes = new ArrayList<>();
+    // updated by the http callbacks
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private final AtomicLong completedBytes = new AtomicLong();
+
+    private record Batch(Slice lines, int points) {}
+
+    public OpenGeminiPageSink(OpenGeminiSession session, OpenGeminiInsertTableHandle handler, OpenGeminiConfig config)
     {
         this.openGeminiSession = session;
         this.schemaName = handler.getSchemaName();
         this.rpName = handler.getRpName();
-        this.tableName = handler.getTableName();
-        this.columnNames = handler.getColumnNames();
-        this.columnTypes = handler.getColumnTypes();
-        this.columnKinds = handler.getColumnKinds();
+        this.encoder = new OpenGeminiLineProtocolEncoder(handler.getTableName(), handler.getColumnNames(), handler.getColumnTypes(), handler.getColumnKinds());
+        this.maxInFlightWrites = config.getMaxInFlightWrites();
+        this.maxBatchBytes = toIntExact(config.getWriteBatchSize().toBytes());
+        this.maxBatchPoints = config.getWriteBatchPoints();
+        this.batchLingerNanos = config.getWriteBatchLinger().roundTo(NANOSECONDS);
     }
 
     @Override
-    public CompletableFuture<?> appendPage(Page page)
+    public synchronized CompletableFuture<?> appendPage(Page page)
     {
-        log.info("debug for appendPage, db: %s, rp: %s, measurement: %s", schemaName, rpName, tableName);
-        BatchPoints batchPoints = BatchPoints.database(schemaName).retentionPolicy(rpName).build();
+        checkWrites();
+
+        encoder.startPage(page);
         for (int position = 0; position < page.getPositionCount(); position++) {
-            batchPoints.point(appendOnePage(page, position));
+            if (batch == null) {
+                // encoding overlaps with the writes in flight, so every batch gets its own buffer
+                batch = new DynamicSliceOutput(Math.min(lastBatchSize, maxBatchBytes));
+                batchPoints = 0;
+                batchStartNanos = System.nanoTime();
+            }
+            encoder.encodeRow(position, batch);
+            batchPoints++;
+            if (batch.size() >= maxBatchBytes || batchPoints >= maxBatchPoints) {
+                flushBatch();
+            }
+        }
+        encoder.finishPage();
+        // the linger time is checked when pages arrive, the last batch is sent by finish
+        if (batch != null && System.nanoTime() - batchStartNanos >= batchLingerNanos) {
+            flushBatch();
+        }
+        sendPendingBatches();
+
+        // block the writer until one of the writes is done
+        if (!pendingBatches.isEmpty() || writes.size() >= maxInFlightWrites) {
+            return CompletableFuture.anyOf(writes.toArray(CompletableFuture[]::new));
         }
-        openGeminiSession.writePoints(batchPoints);
         return NOT_BLOCKED;
     }
 
-    private Point appendOnePage(Page page, int position)
+    private void flushBatch()
     {
-        long timestamp = -1;
-        Map<String, Object> fieldsToAdd = new HashMap<>();
-        Map<String, String> tagsToAdd = new HashMap<>();
-        for (int channel = 0; channel < page.getChannelCount(); channel++) {
-            String name = columnNames.get(channel);
-            Type type = columnTypes.get(channel);
-            String kind = columnKinds.get(channel);
-
-            Block block = page.getBlock(channel);
-            if (block.isNull(position)) {
-                log.info("debug for appendOnePage, column: %s, kind: %s, value is null", name, kind);
-                continue;
-            }
-
-            Object val = getValue(block, position, type);
-            if (val == null) {
-                continue;
-            }
+        lastBatchSize = batch.size();
+        Slice lines = batch.slice();
+        pendingBatches.add(new Batch(lines, batchPoints));
+        pendingBytes += lines.getRetainedSize();
+        batch = null;
+    }
 
-            switch (kind) {
-                case TIME_KIND -> { timestamp = (long) val; }
-                case TAG_KIND -> tagsToAdd.put(name, (String) val);
-                case FIELD_KIND -> fieldsToAdd.put(name, val);
-                default -> log.warn("unsupported kind: %s", kind);
-            }
-            log.info("debug for appendOnePage, column: %s, kind: %s, type: %s, val: %s", name, kind, type, val);
+    private void sendPendingBatches()
+    {
+        while (!pendingBatches.isEmpty() && writes.size() < maxInFlightWrites) {
+            Batch pending = pendingBatches.poll();
+            long retainedBytes = pending.lines().getRetainedSize();
+            pendingBytes -= retainedBytes;
+            inFlightBytes.addAndGet(retainedBytes);
+            CompletableFuture<Void> write = openGeminiSession.writeLines(schemaName, rpName, pending.lines(), pending.points());
+            write.whenComplete((result, throwable) -> {
+                inFlightBytes.addAndGet(-retainedBytes);
+                if (throwable == null) {
+                    completedBytes.addAndGet(pending.lines().length());
+                }
+            });
+            writes.add(write);
         }
+    }
 
-        if (timestamp < 0) {
-            timestamp = currentTimeNanos();
-        }
-        return Point.measurement(tableName).tag(tagsToAdd).fields(fieldsToAdd).time(timestamp, TimeUnit.NANOSECONDS).build();
+    // line protocol bytes written
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes.get();
     }
 
-    private Object getValue(Block block, int position, Type type)
+    // the open batch, the batches waiting to be sent and the ones in flight
+    @Override
+    public synchronized long getMemoryUsage()
     {
-        if (TIMESTAMP_TZ_NANOS.equals(type)) {
-            LongTimestampWithTimeZone value = (LongTimestampWithTimeZone) type.getObject(block, position);
-            return value.getEpochMillis() * NANOSECONDS_PER_MILLISECOND + roundDiv(value.getPicosOfMilli(), PICOSECONDS_PER_NANOSECOND);
-        }
-        else if (type instanceof VarcharType) {
-            return type.getSlice(block, position).toStringUtf8();
-        }
-        else if (BIGINT.equals(type)) {
-            return type.getLong(block, position);
-        }
-        else if (DOUBLE.equals(type)) {
-            return type.getDouble(block, position);
-        }
-        else if (BOOLEAN.equals(type)) {
-            return type.getBoolean(block, position);
-        }
-        else {
-            log.warn("unsupported type %s", type);
-        }
-        return null;
+        return (batch == null ? 0 : batch.getRetainedSize()) + pendingBytes + inFlightBytes.get();
     }
 
-    private long currentTimeNanos()
+    // remove the done writes, and fail if any of them failed
+    private void checkWrites()
     {
-        Instant now = Instant.now();
-        return now.toEpochMilli() * NANOSECONDS_PER_MILLISECOND + now.getNano();
+        Iterator<CompletableFuture<Void>> iterator = writes.iterator();
+        while (iterator.hasNext()) {
+            CompletableFuture<Void> write = iterator.next();
+            if (write.isDone()) {
+                write.join();
+                iterator.remove();
+            }
+        }
     }
 
     @Override
-    public CompletableFuture<Collection<Slice>> finish()
+    public synchronized CompletableFuture<Collection<Slice>> finish()
     {
+        if (batch != null) {
+            flushBatch();
+        }
         // the committer does not need any additional info
-        return completedFuture(ImmutableList.of());
+        return sendAll().thenApply(ignored -> ImmutableList.of());
+    }
+
+    // send the pending batches as the writes in flight are done, and wait for all of them
+    private synchronized CompletableFuture<?> sendAll()
+    {
+        checkWrites();
+        sendPendingBatches();
+        if (pendingBatches.isEmpty()) {
+            return CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new));
+        }
+        return CompletableFuture.anyOf(writes.toArray(CompletableFuture[]::new))
+                .thenCompose(ignored -> sendAll());
     }
 
     @Override
-    public void abort() {}
+    public synchronized void abort()
+    {
+        batch = null;
+        pendingBatches.clear();
+        pendingBytes = 0;
+        writes.forEach(write -> write.cancel(true));
+        writes.clear();
+    }
 }
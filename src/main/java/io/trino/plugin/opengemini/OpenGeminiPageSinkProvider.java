@@ -30,11 +30,13 @@ public class OpenGeminiPageSinkProvider
         implements ConnectorPageSinkProvider
 {
     private final OpenGeminiSession session;
+    private final OpenGeminiConfig config;
 
     @Inject
-    public OpenGeminiPageSinkProvider(OpenGeminiSession session)
+    public OpenGeminiPageSinkProvider(OpenGeminiSession session, OpenGeminiConfig config)
     {
         this.session = requireNonNull(session, "session is null");
+        this.config = requireNonNull(config, "config is null");
     }
 
     @Override
@@ -49,6 +51,6 @@ public class OpenGeminiPageSinkProvider
         requireNonNull(tableHandle, "tableHandle is null");
         checkArgument(tableHandle instanceof OpenGeminiInsertTableHandle, "tableHandle is not an instance of ConnectorInsertTableHandle");
         OpenGeminiInsertTableHandle handle = (OpenGeminiInsertTableHandle) tableHandle;
-        return new OpenGeminiPageSink(this.session, handle);
+        return new OpenGeminiPageSink(this.session, handle, config);
     }
 }
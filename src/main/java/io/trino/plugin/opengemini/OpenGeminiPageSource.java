@@ -0,0 +1,234 @@
+/* Copyright 2024 Huawei Cloud Computing Technologies Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.opengemini;
+
+import io.airlift.units.Duration;
+import io.trino.spi.Page;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.connector.DynamicFilter;
+import io.trino.spi.metrics.Metrics;
+import io.trino.spi.predicate.TupleDomain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public class OpenGeminiPageSource
+        implements ConnectorPageSource
+{
+    private final OpenGeminiSession openGeminiSession;
+    private final OpenGeminiPageDecoder decoder;
+    private final String database;
+    // builds the query with the predicate of the dynamic filter, empty if no point can match
+    private final Function<TupleDomain<ColumnHandle>, Optional<Query>> queryBuilder;
+    private final DynamicFilter dynamicFilter;
+    private final long dynamicFilterDeadlineNanos;
+    private final CompletableFuture<?> dynamicFilterTimeout;
+
+    // the query is sent when the dynamic filter is complete or the wait times out
+    private Query query;
+    private OpenGeminiPageBuffer buffer;
+    // pages of a query with a fallback are held until it is known whether the fallback replaces them
+    private final List<Page> heldPages = new ArrayList<>();
+    private long heldPositions;
+    private long heldBytes;
+    // statistics of a query replaced by its fallback
+    private long replacedBytes;
+    private long replacedReadTimeNanos;
+    private Metrics replacedMetrics = Metrics.EMPTY;
+    private long completedPositions;
+    private boolean finished;
+
+    // a query with a fallback, such as a top-n, returns at least fallbackPositions rows. otherwise its result is
+    // dropped and the fallback query is sent instead
+    public record Query(String sql, Optional<String> fallbackSql, long fallbackPositions)
+    {
+        public Query
+        {
+            requireNonNull(sql, "sql is null");
+            requireNonNull(fallbackSql, "fallbackSql is null");
+        }
+    }
+
+    public OpenGeminiPageSource(
+            OpenGeminiSession openGeminiSession,
+            List<OpenGeminiColumnHandle> columnHandles,
+            String database,
+            boolean globalAggregation,
+            Function<TupleDomain<ColumnHandle>, Optional<Query>> queryBuilder,
+            DynamicFilter dynamicFilter,
+            Duration dynamicFilterWaitTimeout)
+    {
+        this.openGeminiSession = requireNonNull(openGeminiSession, "openGeminiSession is null");
+        requireNonNull(columnHandles, "columnHandles is null");
+        this.decoder = new OpenGeminiPageDecoder(columnHandles, globalAggregation);
+        this.database = requireNonNull(database, "database is null");
+        this.queryBuilder = requireNonNull(queryBuilder, "queryBuilder is null");
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+        long waitNanos = dynamicFilterWaitTimeout.roundTo(NANOSECONDS);
+        this.dynamicFilterDeadlineNanos = System.nanoTime() + waitNanos;
+        this.dynamicFilterTimeout = new CompletableFuture<>().completeOnTimeout(null, waitNanos, NANOSECONDS);
+        startQuery();
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return replacedBytes + (buffer == null ? 0 : buffer.getStats().getReceivedBytes());
+    }
+
+    @Override
+    public OptionalLong getCompletedPositions()
+    {
+        return OptionalLong.of(completedPositions);
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return replacedReadTimeNanos + (buffer == null ? 0 : buffer.getStats().getReadTimeNanos());
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (finished || !startQuery()) {
+            return null;
+        }
+        if (query.fallbackSql().isPresent()) {
+            return holdPages();
+        }
+        if (!heldPages.isEmpty()) {
+            Page page = heldPages.remove(heldPages.size() - 1);
+            heldBytes -= page.getRetainedSizeInBytes();
+            return completed(page);
+        }
+
+        // pages are decoded on the http client threads, only the ones received so far are returned
+        Page page = buffer.poll();
+        if (page == null) {
+            finished = buffer.isFinished();
+            return null;
+        }
+        return completed(page);
+    }
+
+    private Page holdPages()
+    {
+        Page page = buffer.poll();
+        if (page != null) {
+            heldPages.add(page);
+            heldPositions += page.getPositionCount();
+            heldBytes += page.getRetainedSizeInBytes();
+            return null;
+        }
+        if (!buffer.isFinished()) {
+            return null;
+        }
+
+        if (heldPositions >= query.fallbackPositions()) {
+            // returned in any order, as they are sorted by trino
+            query = new Query(query.sql(), Optional.empty(), 0);
+            return null;
+        }
+        heldPages.clear();
+        heldBytes = 0;
+        OpenGeminiScanStats stats = buffer.getStats();
+        replacedBytes += stats.getReceivedBytes();
+        replacedReadTimeNanos += stats.getReadTimeNanos();
+        replacedMetrics = replacedMetrics.mergeWith(stats.getMetrics());
+        buffer.close();
+        query = new Query(query.fallbackSql().get(), Optional.empty(), 0);
+        buffer = openGeminiSession.queryByChunk(database, query.sql(), decoder);
+        return null;
+    }
+
+    private Page completed(Page page)
+    {
+        completedPositions += page.getPositionCount();
+        return page;
+    }
+
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        if (finished) {
+            return NOT_BLOCKED;
+        }
+        if (buffer == null) {
+            return CompletableFuture.anyOf(dynamicFilter.isBlocked(), dynamicFilterTimeout);
+        }
+        if (!heldPages.isEmpty() && query.fallbackSql().isEmpty()) {
+            return NOT_BLOCKED;
+        }
+        return buffer.isBlocked();
+    }
+
+    @Override
+    public Metrics getMetrics()
+    {
+        return buffer == null ? replacedMetrics : replacedMetrics.mergeWith(buffer.getStats().getMetrics());
+    }
+
+    @Override
+    public long getMemoryUsage()
+    {
+        return decoder.getRetainedSizeInBytes() + heldBytes + (buffer == null ? 0 : buffer.getBufferedBytes());
+    }
+
+    @Override
+    public void close()
+    {
+        finished = true;
+        heldPages.clear();
+        dynamicFilterTimeout.cancel(false);
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+
+    // returns whether the query has been sent, the scan finishes without any query if the predicate matches nothing
+    private boolean startQuery()
+    {
+        if (buffer != null) {
+            return true;
+        }
+        if (dynamicFilter.isAwaitable() && System.nanoTime() - dynamicFilterDeadlineNanos < 0) {
+            return false;
+        }
+        dynamicFilterTimeout.cancel(false);
+        Optional<Query> builtQuery = queryBuilder.apply(dynamicFilter.getCurrentPredicate());
+        if (builtQuery.isEmpty()) {
+            finished = true;
+            return false;
+        }
+        query = builtQuery.get();
+        buffer = openGeminiSession.queryByChunk(database, query.sql(), decoder);
+        return true;
+    }
+}
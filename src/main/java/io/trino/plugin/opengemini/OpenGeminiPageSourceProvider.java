@@ -0,0 +1,107 @@
+/* Copyright 2024 Huawei Cloud Computing Technologies Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.opengemini;
+
+import io.airlift.log.Logger;
+import io.airlift.units.Duration;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.connector.ConnectorPageSourceProvider;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.connector.ConnectorSplit;
+import io.trino.spi.connector.ConnectorTableHandle;
+import io.trino.spi.connector.ConnectorTransactionHandle;
+import io.trino.spi.connector.DynamicFilter;
+import io.trino.spi.connector.EmptyPageSource;
+import io.trino.spi.connector.TableNotFoundException;
+import io.trino.spi.predicate.TupleDomain;
+
+import javax.inject.Inject;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+public class OpenGeminiPageSourceProvider
+        implements ConnectorPageSourceProvider
+{
+    private static final Logger log = Logger.get(OpenGeminiPageSourceProvider.class);
+
+    private final OpenGeminiSession session;
+    private final Duration dynamicFilteringWaitTimeout;
+
+    @Inject
+    public OpenGeminiPageSourceProvider(OpenGeminiSession session, OpenGeminiConfig config)
+    {
+        this.session = requireNonNull(session, "session is null");
+        this.dynamicFilteringWaitTimeout = config.getDynamicFilteringWaitTimeout();
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(
+            ConnectorTransactionHandle transaction,
+            ConnectorSession session,
+            ConnectorSplit split,
+            ConnectorTableHandle table,
+            List<ColumnHandle> columns,
+            DynamicFilter dynamicFilter)
+    {
+        List<OpenGeminiColumnHandle> columnHandles = columns.stream()
+                .map(column -> (OpenGeminiColumnHandle) column)
+                .toList();
+
+        OpenGeminiTableHandle tableHandle = (OpenGeminiTableHandle) table;
+        TupleDomain<ColumnHandle> constraint = tableHandle.getConstraint().intersect(((OpenGeminiSplit) split).getConstraint());
+        if (constraint.isNone()) {
+            return new EmptyPageSource();
+        }
+
+        // the columns are pruned by projection pushdown, or selected here if the projection has not been applied
+        List<OpenGeminiColumnHandle> projectedColumns = tableHandle.getProjectedColumns();
+        if (projectedColumns.isEmpty() && !tableHandle.isAggregated()) {
+            OpenGeminiTable openGeminiTable = this.session.getTable(tableHandle.getSchemaName(), tableHandle.getTableName());
+            if (openGeminiTable == null) {
+                throw new TableNotFoundException(tableHandle.toSchemaTableName());
+            }
+            projectedColumns = OpenGeminiQLUtils.projectedColumns(columnHandles, openGeminiTable);
+        }
+
+        // the dynamic filters of joins narrow the scan, except an aggregated one whose columns are not all stored,
+        // and a limited one, as the filter would be applied before the limit instead of after it
+        DynamicFilter scanDynamicFilter = tableHandle.isAggregated() || tableHandle.getLimit() > 0 ? DynamicFilter.EMPTY : dynamicFilter;
+        List<OpenGeminiColumnHandle> selectedColumns = projectedColumns;
+        Function<TupleDomain<ColumnHandle>, Optional<OpenGeminiPageSource.Query>> queryBuilder = dynamicPredicate -> {
+            TupleDomain<ColumnHandle> scanConstraint = constraint.intersect(dynamicPredicate.filter(OpenGeminiQLUtils::isExpressibleDomain));
+            if (scanConstraint.isNone()) {
+                log.debug("skipping query pruned by dynamic filter, db: %s table: %s", tableHandle.getSchemaName(), tableHandle.getTableName());
+                return Optional.empty();
+            }
+            String sql = OpenGeminiQLUtils.selectFrom(tableHandle, selectedColumns, scanConstraint);
+            log.debug("creating page source, db: %s sql: %s, constraint: %s", tableHandle.getSchemaName(), sql, scanConstraint.toString());
+            if (tableHandle.getSortColumn().isEmpty()) {
+                return Optional.of(new OpenGeminiPageSource.Query(sql, Optional.empty(), 0));
+            }
+            // TOP() and BOTTOM() skip the points without the field, which are scanned if there are fewer points than the limit
+            OpenGeminiTableHandle scanHandle = tableHandle.withSort(Optional.empty(), false).withLimit(0);
+            String fallbackSql = OpenGeminiQLUtils.selectFrom(scanHandle, selectedColumns, scanConstraint);
+            return Optional.of(new OpenGeminiPageSource.Query(sql, Optional.of(fallbackSql), tableHandle.getLimit()));
+        };
+        // aggregation without grouping returns one row even if there is no point, but openGemini returns nothing
+        boolean globalAggregation = tableHandle.isAggregated() && tableHandle.getGroupingColumns().isEmpty();
+        return new OpenGeminiPageSource(this.session, columnHandles, tableHandle.getSchemaName(), globalAggregation, queryBuilder, scanDynamicFilter, dynamicFilteringWaitTimeout);
+    }
+}
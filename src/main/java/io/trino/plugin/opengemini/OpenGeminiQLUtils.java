@@ -14,8 +14,16 @@
  */
 package io.trino.plugin.opengemini;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slice;
+import io.trino.spi.connector.AggregateFunction;
 import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.expression.Call;
+import io.trino.spi.expression.ConnectorExpression;
+import io.trino.spi.expression.Constant;
+import io.trino.spi.expression.FunctionName;
+import io.trino.spi.expression.Variable;
 import io.trino.spi.predicate.Domain;
 import io.trino.spi.predicate.Range;
 import io.trino.spi.predicate.TupleDomain;
@@ -23,40 +31,367 @@ import io.trino.spi.type.LongTimestampWithTimeZone;
 import io.trino.spi.type.Type;
 import io.trino.spi.type.VarcharType;
 
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import static io.trino.plugin.opengemini.OpenGeminiColumn.FIELD_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.TAG_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.TIME_BUCKET_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.TIME_KIND;
+import static io.trino.spi.expression.StandardFunctions.LIKE_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.NOT_FUNCTION_NAME;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.spi.type.BooleanType.BOOLEAN;
 import static io.trino.spi.type.DoubleType.DOUBLE;
+import static io.trino.spi.type.TimeZoneKey.UTC_KEY;
 import static io.trino.spi.type.TimestampWithTimeZoneType.TIMESTAMP_TZ_NANOS;
 import static io.trino.spi.type.Timestamps.NANOSECONDS_PER_MILLISECOND;
 import static io.trino.spi.type.Timestamps.PICOSECONDS_PER_NANOSECOND;
+import static java.lang.Math.floorDiv;
+import static java.lang.Math.floorMod;
 import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public final class OpenGeminiQLUtils
 {
+    private static final FunctionName DATE_TRUNC_FUNCTION_NAME = new FunctionName("date_trunc");
+    private static final FunctionName STARTS_WITH_FUNCTION_NAME = new FunctionName("starts_with");
+    private static final FunctionName REGEXP_LIKE_FUNCTION_NAME = new FunctionName("regexp_like");
+    // characters of regexes which may mean the same in joni, the default regex library of trino, and in the RE2 syntax of openGemini,
+    // without escapes or groups like (?<name>). the structure is checked by portableRegex
+    private static final Pattern PORTABLE_REGEX = Pattern.compile("[\\w\\s^$.*+?|()\\[\\]{},:;=@#%&!'\"~/-]*");
+    private static final Pattern REPETITION = Pattern.compile("\\{(\\d+)(,(\\d*))?}");
+    // larger repetitions are rejected by RE2
+    private static final int MAX_REPETITION = 1000;
+
     private OpenGeminiQLUtils() {}
 
     public static String selectFrom(OpenGeminiTableHandle tableHandle, List<OpenGeminiColumnHandle> columns, TupleDomain<ColumnHandle> tupleDomain)
     {
         StringBuilder sb = new StringBuilder();
         sb.append("select ");
-        if (columns.isEmpty()) {
+        if (tableHandle.isAggregated()) {
+            // grouping columns are returned as tags of each series
+            sb.append(tableHandle.getAggregates().stream()
+                    .map(column -> column.getExpression().orElseThrow() + " as " + toDoubleQuoted(column.getColumnName()))
+                    .collect(Collectors.joining(","))).append(" ");
+        }
+        else if (tableHandle.getSortColumn().isPresent()) {
+            // the points of the largest or smallest values, with the other columns of the same points
+            String sortColumn = tableHandle.getSortColumn().get().getColumnName();
+            String function = tableHandle.getSortAscending() ? "bottom" : "top";
+            sb.append(function).append("(").append(toDoubleQuoted(sortColumn)).append(",").append(tableHandle.getLimit()).append(") as ").append(toDoubleQuoted(sortColumn));
+            columns.stream()
+                    .filter(column -> !column.getColumnKind().equals(TIME_BUCKET_KIND) && !column.getColumnName().equals(sortColumn))
+                    .map(column -> toDoubleQuoted(column.getColumnName()))
+                    .distinct()
+                    .forEach(column -> sb.append(",").append(column));
+            sb.append(" ");
+        }
+        else if (columns.isEmpty()) {
             sb.append("* ");
         }
         else {
-            sb.append(columns.stream().map(column -> toDoubleQuoted(column.getColumnName())).collect(Collectors.joining(","))).append(" ");
+            // time bucket is computed from time by the page source
+            sb.append(columns.stream()
+                    .map(column -> column.getColumnKind().equals(TIME_BUCKET_KIND) ? "time" : column.getColumnName())
+                    .distinct()
+                    .map(OpenGeminiQLUtils::toDoubleQuoted)
+                    .collect(Collectors.joining(","))).append(" ");
         }
         sb.append("from ").append(toDoubleQuoted(tableHandle.getRpName())).append(".").append(toDoubleQuoted(tableHandle.getTableName()));
-        whereClause(tupleDomain, sb);
+        whereClause(tupleDomain, tableHandle.getConditions(), sb);
+        groupByClause(tableHandle.getGroupingColumns(), sb);
         orderByClause(tableHandle.getAscending(), sb);
         limitClause(tableHandle.getLimit(), sb);
         return sb.toString();
     }
 
+    // tags and fields selected for the columns, time is always returned and time buckets are computed from it.
+    // openGemini only returns the points having a value of the selected fields, so all fields are selected if
+    // there is none, for example in count(*), which returns every point without transferring the tags
+    public static List<OpenGeminiColumnHandle> projectedColumns(Collection<OpenGeminiColumnHandle> columns, OpenGeminiTable table)
+    {
+        List<OpenGeminiColumnHandle> projected = columns.stream()
+                .filter(column -> column.getColumnKind().equals(TAG_KIND) || column.getColumnKind().equals(FIELD_KIND))
+                .distinct()
+                .sorted(Comparator.comparing(OpenGeminiColumnHandle::getColumnName))
+                .toList();
+        if (projected.stream().anyMatch(column -> column.getColumnKind().equals(FIELD_KIND))) {
+            return projected;
+        }
+        return ImmutableList.<OpenGeminiColumnHandle>builder()
+                .addAll(projected)
+                .addAll(table.getColumns().stream()
+                        .filter(column -> column.getKind().equals(FIELD_KIND))
+                        .map(column -> new OpenGeminiColumnHandle(column.getName(), column.getType(), column.getKind()))
+                        .iterator())
+                .build();
+    }
+
+    public static Optional<String> aggregateExpression(AggregateFunction aggregate, Map<String, ColumnHandle> assignments)
+    {
+        if (aggregate.isDistinct() || aggregate.getFilter().isPresent() || !aggregate.getSortItems().isEmpty() || aggregate.getArguments().size() != 1) {
+            return Optional.empty();
+        }
+        if (!(aggregate.getArguments().get(0) instanceof Variable variable)) {
+            return Optional.empty();
+        }
+        OpenGeminiColumnHandle column = (OpenGeminiColumnHandle) assignments.get(variable.getName());
+        if (!column.getColumnKind().equals(FIELD_KIND)) {
+            return Optional.empty();
+        }
+
+        Type inputType = column.getColumnType();
+        Type outputType = aggregate.getOutputType();
+        boolean numeric = BIGINT.equals(inputType) || DOUBLE.equals(inputType);
+        String function = switch (aggregate.getFunctionName()) {
+            case "count" -> BIGINT.equals(outputType) ? "count" : null;
+            case "sum" -> numeric && inputType.equals(outputType) ? "sum" : null;
+            case "avg" -> numeric && DOUBLE.equals(outputType) ? "mean" : null;
+            case "min", "max" -> numeric && inputType.equals(outputType) ? aggregate.getFunctionName() : null;
+            default -> null;
+        };
+        return Optional.ofNullable(function).map(name -> name + "(" + toDoubleQuoted(column.getColumnName()) + ")");
+    }
+
+    // date_trunc(unit, time) which can be computed by group by time(interval), returns the interval
+    public static Optional<String> timeBucketInterval(ConnectorExpression expression, Map<String, ColumnHandle> assignments)
+    {
+        if (!(expression instanceof Call call) || !call.getFunctionName().equals(DATE_TRUNC_FUNCTION_NAME) || call.getArguments().size() != 2) {
+            return Optional.empty();
+        }
+        if (!(call.getArguments().get(0) instanceof Constant unit) || !(unit.getValue() instanceof Slice unitValue)) {
+            return Optional.empty();
+        }
+        if (!(call.getArguments().get(1) instanceof Variable variable) || !TIMESTAMP_TZ_NANOS.equals(call.getType())) {
+            return Optional.empty();
+        }
+        OpenGeminiColumnHandle column = (OpenGeminiColumnHandle) assignments.get(variable.getName());
+        if (!column.getColumnKind().equals(TIME_KIND)) {
+            return Optional.empty();
+        }
+        // only units of fixed length, values are in UTC so that day is aligned to epoch as well
+        String interval = switch (unitValue.toStringUtf8().toLowerCase(Locale.ENGLISH)) {
+            case "second" -> "1s";
+            case "minute" -> "1m";
+            case "hour" -> "1h";
+            case "day" -> "1d";
+            default -> null;
+        };
+        return Optional.ofNullable(interval);
+    }
+
+    // condition matching a string column with a regex, which openGemini evaluates on the tag index for tags.
+    // it is translated from LIKE, starts_with and regexp_like, or their negation
+    public static Optional<String> regexCondition(ConnectorExpression expression, Map<String, ColumnHandle> assignments)
+    {
+        boolean negated = false;
+        if (expression instanceof Call not && not.getFunctionName().equals(NOT_FUNCTION_NAME) && not.getArguments().size() == 1) {
+            expression = not.getArguments().get(0);
+            negated = true;
+        }
+        if (!(expression instanceof Call call) || call.getArguments().size() < 2 || !(call.getArguments().get(0) instanceof Variable variable)) {
+            return Optional.empty();
+        }
+        OpenGeminiColumnHandle column = (OpenGeminiColumnHandle) assignments.get(variable.getName());
+        String kind = column.getColumnKind();
+        if (!(column.getColumnType() instanceof VarcharType) || !(kind.equals(TAG_KIND) || kind.equals(FIELD_KIND))) {
+            return Optional.empty();
+        }
+
+        List<ConnectorExpression> arguments = call.getArguments();
+        Optional<String> regex = Optional.empty();
+        if (call.getFunctionName().equals(LIKE_FUNCTION_NAME) && arguments.size() <= 3) {
+            Optional<String> escape = arguments.size() == 3 ? stringValue(arguments.get(2)) : Optional.of("");
+            if (escape.isPresent() && escape.get().length() <= 1) {
+                regex = stringValue(arguments.get(1)).flatMap(pattern -> likeRegex(pattern, escape.get()));
+            }
+        }
+        else if (call.getFunctionName().equals(STARTS_WITH_FUNCTION_NAME) && arguments.size() == 2) {
+            regex = stringValue(arguments.get(1))
+                    .filter(prefix -> !prefix.isEmpty())
+                    .map(prefix -> "^" + quoteRegex(prefix));
+        }
+        else if (call.getFunctionName().equals(REGEXP_LIKE_FUNCTION_NAME) && arguments.size() == 2) {
+            regex = stringValue(arguments.get(1))
+                    .flatMap(OpenGeminiQLUtils::portableRegex)
+                    .map(pattern -> pattern.replace("/", "\\/"));
+        }
+        String operator = negated ? " !~ /" : " =~ /";
+        return regex.map(value -> toDoubleQuoted(column.getColumnName()) + operator + value + "/");
+    }
+
+    // LIKE and starts_with are evaluated exactly by openGemini, as their regexes never match the empty string of an absent tag.
+    // the negations match absent tags and fields which are null in trino, and regexp_like may differ in corner cases
+    public static boolean isExactRegexCondition(ConnectorExpression expression)
+    {
+        return expression instanceof Call call &&
+                (call.getFunctionName().equals(LIKE_FUNCTION_NAME) || call.getFunctionName().equals(STARTS_WITH_FUNCTION_NAME));
+    }
+
+    // the regex for openGemini matching the same strings as the regexp_like pattern in trino, empty if they may differ.
+    // ^ and $ match at every line in joni, and only at the ends of the text in RE2 without the m flag.
+    // joni reads {,n} as a repetition and RE2 as literal text, and RE2 rejects possessive and nested repetitions,
+    // so a { must start a repetition, and a repetition may only be followed by the ? of a lazy one
+    private static Optional<String> portableRegex(String pattern)
+    {
+        if (pattern.isEmpty() || pattern.contains("(?") || !PORTABLE_REGEX.matcher(pattern).matches()) {
+            return Optional.empty();
+        }
+        boolean anchored = false;
+        // whether the previous token can be repeated, and whether it is a repetition which may be made lazy
+        boolean repeatable = false;
+        boolean lazyAllowed = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '[') {
+                // classes are copied as they are, without nested classes, intersections or a leading ]
+                int start = pattern.startsWith("[^", i) ? i + 2 : i + 1;
+                int end = pattern.indexOf(']', start);
+                if (end <= start || pattern.substring(start, end).contains("[") || pattern.substring(start, end).contains("&&")) {
+                    return Optional.empty();
+                }
+                i = end + 1;
+                repeatable = true;
+                lazyAllowed = false;
+                continue;
+            }
+            if (c == '{') {
+                Matcher repetition = REPETITION.matcher(pattern).region(i, pattern.length());
+                if (!repeatable || !repetition.lookingAt() || !isRepetitionBound(repetition.group(1)) ||
+                        (repetition.group(3) != null && !repetition.group(3).isEmpty() && !isRepetitionBound(repetition.group(3)))) {
+                    return Optional.empty();
+                }
+                i = repetition.end();
+                repeatable = false;
+                lazyAllowed = true;
+                continue;
+            }
+            if (c == '*' || c == '+' || c == '?') {
+                if (c == '?' && lazyAllowed) {
+                    lazyAllowed = false;
+                }
+                else if (!repeatable) {
+                    return Optional.empty();
+                }
+                else {
+                    repeatable = false;
+                    lazyAllowed = true;
+                }
+            }
+            else if (c == '}' || c == ']') {
+                return Optional.empty();
+            }
+            else {
+                anchored |= c == '^' || c == '$';
+                // a repetition must follow an atom, not the start of a group, an alternative or an anchor
+                repeatable = c != '(' && c != '|' && c != '^' && c != '$';
+                lazyAllowed = false;
+            }
+            i++;
+        }
+        return Optional.of(anchored ? "(?m)" + pattern : pattern);
+    }
+
+    private static boolean isRepetitionBound(String value)
+    {
+        return value.length() <= 4 && Integer.parseInt(value) <= MAX_REPETITION;
+    }
+
+    private static Optional<String> stringValue(ConnectorExpression expression)
+    {
+        if (expression instanceof Constant constant && constant.getValue() instanceof Slice value) {
+            return Optional.of(value.toStringUtf8());
+        }
+        return Optional.empty();
+    }
+
+    // anchored regex of a LIKE pattern, empty if the pattern is invalid or matches the empty string
+    private static Optional<String> likeRegex(String pattern, String escape)
+    {
+        StringBuilder regex = new StringBuilder("(?s)^");
+        boolean escaped = false;
+        boolean matchesEmpty = true;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (escaped) {
+                regex.append(quoteRegex(String.valueOf(c)));
+                escaped = false;
+                matchesEmpty = false;
+            }
+            else if (!escape.isEmpty() && c == escape.charAt(0)) {
+                escaped = true;
+            }
+            else if (c == '%') {
+                regex.append(".*");
+            }
+            else if (c == '_') {
+                regex.append('.');
+                matchesEmpty = false;
+            }
+            else {
+                regex.append(quoteRegex(String.valueOf(c)));
+                matchesEmpty = false;
+            }
+        }
+        if (escaped || matchesEmpty) {
+            return Optional.empty();
+        }
+        return Optional.of(regex.append('$').toString());
+    }
+
+    // escape the regex meta characters and the delimiter of InfluxQL regex literals
+    private static String quoteRegex(String value)
+    {
+        StringBuilder quoted = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ("\\.+*?()|[]{}^$/".indexOf(c) >= 0) {
+                quoted.append('\\');
+            }
+            quoted.append(c);
+        }
+        return quoted.toString();
+    }
+
+    private static void groupByClause(List<OpenGeminiColumnHandle> groupingColumns, StringBuilder sb)
+    {
+        if (groupingColumns.isEmpty()) {
+            return;
+        }
+        sb.append(" group by ").append(groupingColumns.stream()
+                .map(column -> column.getColumnKind().equals(TIME_BUCKET_KIND) ? "time(" + column.getExpression().orElseThrow() + ")" : toDoubleQuoted(column.getColumnName()))
+                .collect(Collectors.joining(",")));
+        if (groupingColumns.stream().anyMatch(column -> column.getColumnKind().equals(TIME_BUCKET_KIND))) {
+            // buckets without any point are not returned, same as grouping in trino
+            sb.append(" fill(none)");
+        }
+    }
+
+    // span of the time domain, empty if time is not restricted
+    public static Optional<Range> timeSpan(TupleDomain<ColumnHandle> tupleDomain)
+    {
+        return tupleDomain.getDomains()
+                .flatMap(domains -> domains.entrySet().stream()
+                        .filter(entry -> ((OpenGeminiColumnHandle) entry.getKey()).getColumnKind().equals(TIME_KIND))
+                        .map(Map.Entry::getValue)
+                        .filter(domain -> !domain.getValues().isNone())
+                        .map(domain -> domain.getValues().getRanges().getSpan())
+                        .findFirst());
+    }
+
     private static void orderByClause(boolean ascending, StringBuilder sb)
     {
         if (!ascending) {
@@ -72,28 +407,64 @@ public final class OpenGeminiQLUtils
         }
     }
 
-    private static void whereClause(TupleDomain<ColumnHandle> tupleDomain, StringBuilder sb)
+    // whether the where clause renders the domain exactly. a field without value is not returned as a column,
+    // so conditions on null fields, such as is null, is not null or "or is null", are left to trino.
+    // ranges of strings are not supported by openGemini, only value lists of tags and string fields are rendered
+    public static boolean isExpressibleDomain(ColumnHandle column, Domain domain)
     {
-        if (tupleDomain.isAll() || tupleDomain.getDomains().isEmpty()) {
-            return;
+        OpenGeminiColumnHandle columnHandle = (OpenGeminiColumnHandle) column;
+        String kind = columnHandle.getColumnKind();
+        if (columnHandle.getColumnType() instanceof VarcharType && !domain.getValues().isAll() && !domain.getValues().isDiscreteSet()) {
+            return false;
         }
+        if (kind.equals(FIELD_KIND)) {
+            return !domain.isNullAllowed() && !domain.getValues().isAll();
+        }
+        return kind.equals(TIME_KIND) || kind.equals(TAG_KIND);
+    }
 
+    private static void whereClause(TupleDomain<ColumnHandle> tupleDomain, List<String> conditions, StringBuilder sb)
+    {
         boolean newEntry = false;
         StringBuilder whereBuiler = new StringBuilder();
-        for (Map.Entry<ColumnHandle, Domain> entry : tupleDomain.getDomains().get().entrySet()) {
+        for (Map.Entry<ColumnHandle, Domain> entry : tupleDomain.getDomains().orElse(ImmutableMap.of()).entrySet()) {
             OpenGeminiColumnHandle column = (OpenGeminiColumnHandle) entry.getKey();
             String fieldName = column.getColumnName();
             Type type = column.getColumnType();
 
+            Domain domain = entry.getValue();
+            boolean isTag = column.getColumnKind().equals(TAG_KIND);
+            if (domain.getValues().isAll()) {
+                // tag without value is taken as empty string in openGemini, a null field can not be filtered
+                if (isTag && !domain.isNullAllowed()) {
+                    if (newEntry) {
+                        whereBuiler.append(" and ");
+                    }
+                    whereBuiler.append(toDoubleQuoted(fieldName)).append(" != ''");
+                    newEntry = true;
+                }
+                continue;
+            }
+
             int newRange = 0;
             StringBuilder entryBuiler = new StringBuilder();
-            for (Range range : entry.getValue().getValues().getRanges().getOrderedRanges()) {
+            for (Range range : domain.getValues().getRanges().getOrderedRanges()) {
                 if (newRange > 0) {
                     entryBuiler.append(" or ");
                 }
                 entryBuiler.append(shouldClauses(range, fieldName, type));
                 newRange++;
             }
+            if (isTag && domain.isNullAllowed()) {
+                if (newRange > 0) {
+                    entryBuiler.append(" or ");
+                }
+                entryBuiler.append(toDoubleQuoted(fieldName)).append(" = ''");
+                newRange++;
+            }
+            if (newRange == 0) {
+                continue;
+            }
             if (newRange > 1) {
                 entryBuiler.insert(0, "(").append(")");
             }
@@ -103,6 +474,13 @@ public final class OpenGeminiQLUtils
             whereBuiler.append(entryBuiler);
             newEntry = true;
         }
+        for (String condition : conditions) {
+            if (newEntry) {
+                whereBuiler.append(" and ");
+            }
+            whereBuiler.append(condition);
+            newEntry = true;
+        }
         if (!whereBuiler.isEmpty()) {
             sb.append(" where ").append(whereBuiler);
         }
@@ -139,7 +517,7 @@ public final class OpenGeminiQLUtils
         }
 
         if (type instanceof VarcharType) {
-            return "'" + ((Slice) value).toStringUtf8() + "'";
+            return toSingleQuoted(((Slice) value).toStringUtf8());
         }
 
         if (DOUBLE.equals(type)) {
@@ -155,15 +533,50 @@ public final class OpenGeminiQLUtils
         }
 
         if (TIMESTAMP_TZ_NANOS.equals(type)) {
-            LongTimestampWithTimeZone v = (LongTimestampWithTimeZone) value;
-            return v.getEpochMillis() * NANOSECONDS_PER_MILLISECOND + toIntExact(v.getPicosOfMilli() / PICOSECONDS_PER_NANOSECOND);
+            return toEpochNanos((LongTimestampWithTimeZone) value);
         }
 
         throw new IllegalArgumentException("unhandled type: " + type);
     }
 
+    public static long toEpochNanos(LongTimestampWithTimeZone value)
+    {
+        return value.getEpochMillis() * NANOSECONDS_PER_MILLISECOND + toIntExact(value.getPicosOfMilli() / PICOSECONDS_PER_NANOSECOND);
+    }
+
+    // time in RFC3339, as returned without an epoch precision
+    public static long toEpochNanos(String value)
+    {
+        Instant instant = DateTimeFormatter.ISO_ZONED_DATE_TIME.parse(value, Instant::from);
+        return SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+    }
+
+    public static LongTimestampWithTimeZone fromEpochNanos(long epochNanos)
+    {
+        long epochMillis = floorDiv(epochNanos, NANOSECONDS_PER_MILLISECOND);
+        int picosOfMilli = toIntExact(floorMod(epochNanos, NANOSECONDS_PER_MILLISECOND) * PICOSECONDS_PER_NANOSECOND);
+        return LongTimestampWithTimeZone.fromEpochMillisAndFraction(epochMillis, picosOfMilli, UTC_KEY);
+    }
+
+    // string literal of InfluxQL, in which backslash, quote and line breaks must be escaped
+    public static String toSingleQuoted(String value)
+    {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> quoted.append("\\\\");
+                case '\'' -> quoted.append("\\'");
+                case '\n' -> quoted.append("\\n");
+                default -> quoted.append(c);
+            }
+        }
+        return quoted.append('\'').toString();
+    }
+
+    // quoted identifier, names read from openGemini may contain quotes as well
     public static String toDoubleQuoted(String tableName)
     {
-        return format("\"%s\"", tableName);
+        return format("\"%s\"", tableName.replace("\\", "\\\\").replace("\"", "\\\""));
     }
 }
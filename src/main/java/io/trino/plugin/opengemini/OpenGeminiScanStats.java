@@ -0,0 +1,118 @@
+/* Copyright 2024 Huawei Cloud Computing Technologies Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.opengemini;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.Duration;
+import io.trino.plugin.base.metrics.DurationTiming;
+import io.trino.plugin.base.metrics.LongCount;
+import io.trino.spi.metrics.Metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// statistics of one scan, updated by the http callback and read by the page source
+public class OpenGeminiScanStats
+{
+    // bytes of the response body on the wire, and the time reading them, i.e. waiting for openGemini
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private final AtomicLong responseReadNanos = new AtomicLong();
+    // time decoding the response into pages
+    private final AtomicLong decodeNanos = new AtomicLong();
+    // time the decoder waits for the page source to consume buffered pages
+    private final AtomicLong backpressureNanos = new AtomicLong();
+    // time the page source waits for pages
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong decodedRows = new AtomicLong();
+
+    // count the bytes read from the response body and the time blocked in reading them
+    public InputStream measure(InputStream input)
+    {
+        return new FilterInputStream(input)
+        {
+            @Override
+            public int read()
+                    throws IOException
+            {
+                long start = System.nanoTime();
+                int value = super.read();
+                responseReadNanos.addAndGet(System.nanoTime() - start);
+                if (value >= 0) {
+                    receivedBytes.incrementAndGet();
+                }
+                return value;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length)
+                    throws IOException
+            {
+                long start = System.nanoTime();
+                int bytes = super.read(buffer, offset, length);
+                responseReadNanos.addAndGet(System.nanoTime() - start);
+                if (bytes > 0) {
+                    receivedBytes.addAndGet(bytes);
+                }
+                return bytes;
+            }
+        };
+    }
+
+    // the time of decoding excludes reading the response and the backpressure
+    public void addDecodeWallNanos(long nanos)
+    {
+        decodeNanos.addAndGet(Math.max(nanos - responseReadNanos.get() - backpressureNanos.get(), 0));
+    }
+
+    public void addBackpressureNanos(long nanos)
+    {
+        backpressureNanos.addAndGet(nanos);
+    }
+
+    public void addWaitNanos(long nanos)
+    {
+        waitNanos.addAndGet(nanos);
+    }
+
+    public void addDecodedRows(long rows)
+    {
+        decodedRows.addAndGet(rows);
+    }
+
+    public long getReceivedBytes()
+    {
+        return receivedBytes.get();
+    }
+
+    // reading and decoding the response, which is the time spent on the input of the scan
+    public long getReadTimeNanos()
+    {
+        return responseReadNanos.get() + decodeNanos.get();
+    }
+
+    public Metrics getMetrics()
+    {
+        return new Metrics(ImmutableMap.of(
+                "openGeminiResponseReadTime", new DurationTiming(new Duration(responseReadNanos.get(), NANOSECONDS)),
+                "openGeminiDecodeTime", new DurationTiming(new Duration(decodeNanos.get(), NANOSECONDS)),
+                "openGeminiBackpressureTime", new DurationTiming(new Duration(backpressureNanos.get(), NANOSECONDS)),
+                "openGeminiWaitTime", new DurationTiming(new Duration(waitNanos.get(), NANOSECONDS)),
+                "openGeminiDecodedRows", new LongCount(decodedRows.get())));
+    }
+}
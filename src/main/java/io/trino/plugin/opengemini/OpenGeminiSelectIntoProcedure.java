@@ -0,0 +1,198 @@
+/* Copyright 2024 Huawei Cloud Computing Technologies Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.opengemini;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.log.Logger;
+import io.trino.spi.TrinoException;
+import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.connector.TableNotFoundException;
+import io.trino.spi.procedure.Procedure;
+import org.influxdb.dto.QueryResult;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static io.trino.plugin.opengemini.OpenGeminiColumn.FIELD_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiQLUtils.toDoubleQuoted;
+import static io.trino.spi.StandardErrorCode.INVALID_PROCEDURE_ARGUMENT;
+import static io.trino.spi.StandardErrorCode.PROCEDURE_CALL_FAILED;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.DoubleType.DOUBLE;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+// copy points between measurements inside openGemini by select into, instead of reading them into trino and writing them back,
+// e.g. CALL system.select_into('db', 'source', 'target', '2024-01-01T00:00:00Z', '2024-02-01T00:00:00Z', 'value', 'mean', '1m')
+public class OpenGeminiSelectIntoProcedure
+        implements Provider<Procedure>
+{
+    private static final Logger log = Logger.get(OpenGeminiSelectIntoProcedure.class);
+
+    private static final Set<String> AGGREGATES = ImmutableSet.of("count", "sum", "mean", "min", "max", "first", "last");
+    // aggregates of numeric fields only
+    private static final Set<String> NUMERIC_AGGREGATES = ImmutableSet.of("sum", "mean", "min", "max");
+    private static final Pattern INTERVAL = Pattern.compile("\\d+(ns|u|ms|s|m|h|d|w)");
+
+    private static final MethodHandle SELECT_INTO;
+
+    static {
+        try {
+            SELECT_INTO = MethodHandles.lookup().findVirtual(
+                    OpenGeminiSelectIntoProcedure.class,
+                    "selectInto",
+                    methodType(void.class, String.class, String.class, String.class, String.class, String.class, String.class, String.class, String.class));
+        }
+        catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private final OpenGeminiSession session;
+
+    @Inject
+    public OpenGeminiSelectIntoProcedure(OpenGeminiSession session)
+    {
+        this.session = requireNonNull(session, "session is null");
+    }
+
+    @Override
+    public Procedure get()
+    {
+        return new Procedure(
+                "system",
+                "select_into",
+                ImmutableList.of(
+                        new Procedure.Argument("SCHEMA_NAME", VARCHAR),
+                        new Procedure.Argument("SOURCE_TABLE", VARCHAR),
+                        new Procedure.Argument("TARGET_TABLE", VARCHAR),
+                        new Procedure.Argument("START_TIME", VARCHAR),
+                        new Procedure.Argument("END_TIME", VARCHAR),
+                        // comma separated fields, all fields if not set
+                        new Procedure.Argument("FIELDS", VARCHAR, false, null),
+                        new Procedure.Argument("AGGREGATE", VARCHAR, false, null),
+                        // group by time interval of the aggregate, such as 1m
+                        new Procedure.Argument("GROUP_BY_TIME", VARCHAR, false, null)),
+                SELECT_INTO.bindTo(this));
+    }
+
+    public void selectInto(String schema, String sourceTable, String targetTable, String startTime, String endTime, String fields, String aggregate, String groupByTime)
+    {
+        checkIdentifier("schema_name", schema);
+        checkIdentifier("source_table", sourceTable);
+        checkIdentifier("target_table", targetTable);
+        if (!session.getTableNames(schema).contains(sourceTable)) {
+            throw new TableNotFoundException(new SchemaTableName(schema, sourceTable));
+        }
+        long start = toEpochNanos("start_time", startTime);
+        long end = toEpochNanos("end_time", endTime);
+        if (start >= end) {
+            throw new TrinoException(INVALID_PROCEDURE_ARGUMENT, "start_time must be before end_time");
+        }
+        if (aggregate != null && !AGGREGATES.contains(aggregate.toLowerCase(Locale.ENGLISH))) {
+            throw new TrinoException(INVALID_PROCEDURE_ARGUMENT, "aggregate must be one of " + AGGREGATES);
+        }
+        if (groupByTime != null && (aggregate == null || !INTERVAL.matcher(groupByTime).matches())) {
+            throw new TrinoException(INVALID_PROCEDURE_ARGUMENT, "group_by_time must be an interval such as 1m, and it needs an aggregate");
+        }
+
+        List<String> fieldNames;
+        if (fields != null) {
+            fieldNames = Arrays.stream(fields.split(","))
+                    .map(String::trim)
+                    .peek(field -> checkIdentifier("fields", field))
+                    .toList();
+        }
+        else if (aggregate != null) {
+            // aggregate(*) names the results <aggregate>_<field>, so the fields are listed to keep their names
+            boolean numeric = NUMERIC_AGGREGATES.contains(aggregate.toLowerCase(Locale.ENGLISH));
+            fieldNames = session.getTable(schema, sourceTable).getColumns().stream()
+                    .filter(column -> column.getKind().equals(FIELD_KIND))
+                    .filter(column -> !numeric || BIGINT.equals(column.getType()) || DOUBLE.equals(column.getType()))
+                    .map(OpenGeminiColumn::getName)
+                    .toList();
+            if (fieldNames.isEmpty()) {
+                throw new TrinoException(INVALID_PROCEDURE_ARGUMENT, "no field of " + sourceTable + " can be aggregated by " + aggregate);
+            }
+        }
+        else {
+            fieldNames = ImmutableList.of();
+        }
+
+        String selectList;
+        if (fieldNames.isEmpty()) {
+            selectList = "*";
+        }
+        else {
+            selectList = fieldNames.stream()
+                    // aggregates are renamed to the fields, so that the target has the same fields as the source
+                    .map(field -> aggregate == null ? toDoubleQuoted(field) : aggregate + "(" + toDoubleQuoted(field) + ") as " + toDoubleQuoted(field))
+                    .collect(Collectors.joining(", "));
+        }
+
+        // group by * keeps the tags as tags in the target, instead of turning them into fields
+        String rp = toDoubleQuoted(session.getDefaultRpName(schema));
+        String sql = "select " + selectList +
+                " into " + toDoubleQuoted(schema) + "." + rp + "." + toDoubleQuoted(targetTable) +
+                " from " + toDoubleQuoted(schema) + "." + rp + "." + toDoubleQuoted(sourceTable) +
+                " where time >= " + start + " and time < " + end +
+                " group by " + (groupByTime == null ? "" : "time(" + groupByTime + "), ") + "*";
+        log.info("select into, sql: %s", sql);
+
+        QueryResult result = session.executeWrite(schema, sql);
+        if (result.hasError()) {
+            throw new TrinoException(PROCEDURE_CALL_FAILED, result.getError());
+        }
+        if (result.getResults() != null) {
+            for (QueryResult.Result statement : result.getResults()) {
+                if (statement.hasError()) {
+                    throw new TrinoException(PROCEDURE_CALL_FAILED, statement.getError());
+                }
+            }
+        }
+    }
+
+    private static void checkIdentifier(String argument, String value)
+    {
+        if (value == null || value.isEmpty() || value.contains("\"") || value.contains("\n")) {
+            throw new TrinoException(INVALID_PROCEDURE_ARGUMENT, "invalid " + argument + ": " + value);
+        }
+    }
+
+    private static long toEpochNanos(String argument, String value)
+    {
+        try {
+            Instant instant = Instant.parse(requireNonNull(value, argument + " is null"));
+            return SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+        }
+        catch (DateTimeParseException | NullPointerException e) {
+            throw new TrinoException(INVALID_PROCEDURE_ARGUMENT, argument + " must be an rfc3339 time, such as 2024-01-01T00:00:00Z", e);
+        }
+    }
+}
@@ -20,22 +20,44 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.CountingInputStream;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.airlift.log.Logger;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
 import io.airlift.units.Duration;
 import io.trino.collect.cache.NonEvictableLoadingCache;
+import io.trino.spi.statistics.ColumnStatistics;
+import io.trino.spi.statistics.DoubleRange;
+import io.trino.spi.statistics.Estimate;
+import io.trino.spi.statistics.TableStatistics;
 import io.trino.spi.type.BigintType;
 import io.trino.spi.type.BooleanType;
 import io.trino.spi.type.DoubleType;
 import io.trino.spi.type.TimestampWithTimeZoneType;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Credentials;
+import okhttp3.Dispatcher;
+import okhttp3.FormBody;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.apache.http.ssl.SSLContexts;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBFactory;
-import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
@@ -44,24 +66,41 @@ import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.trino.collect.cache.SafeCaches.buildNonEvictableCache;
 import static io.trino.plugin.opengemini.OpenGeminiColumn.FIELD_KIND;
 import static io.trino.plugin.opengemini.OpenGeminiColumn.TAG_KIND;
 import static io.trino.plugin.opengemini.OpenGeminiColumn.TIME_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiQLUtils.fromEpochNanos;
 import static io.trino.plugin.opengemini.OpenGeminiQLUtils.toDoubleQuoted;
 import static io.trino.spi.type.VarcharType.createUnboundedVarcharType;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 public class OpenGeminiSession
@@ -69,8 +108,22 @@ public class OpenGeminiSession
     private static final Logger log = Logger.get(OpenGeminiSession.class);
 
     private static final String SCHEMA_CACHE_KEY = "schema";
+    // number of points dropped in the error of a partial write
+    private static final Pattern DROPPED_POINTS = Pattern.compile("dropped=(\\d+)");
+    private static final MediaType LINE_PROTOCOL = MediaType.get("text/plain; charset=utf-8");
 
+    private final Supplier<OkHttpClient> httpClient;
+    // client of chunk queries, whose callbacks wait while the page buffer is full
+    private final Supplier<OkHttpClient> chunkQueryClient;
     private final Supplier<InfluxDB> db;
+    // client of the statistics queries, which may scan more than the metadata queries
+    private final Supplier<InfluxDB> statisticsDb;
+    // client of the statements writing inside openGemini, such as the backfills of select into
+    private final Supplier<InfluxDB> writeQueryDb;
+    private final HttpUrl queryUrl;
+    private final HttpUrl writeUrl;
+    private final String username;
+    private final String password;
     // "schema" -> Set<schame>
     private final NonEvictableLoadingCache<String, Set<String>> schemaCache;
     // schema name -> Set<table name>
@@ -79,34 +132,172 @@ public class OpenGeminiSession
     private final NonEvictableLoadingCache<String, String> rpCache;
     // {schema, table} -> List<OpenGeminiColumn>
     private final NonEvictableLoadingCache<OpenGeminiColumnKey, List<OpenGeminiColumn>> columnCache;
+    // {schema, rp, table} -> TableStatistics
+    private final NonEvictableLoadingCache<OpenGeminiStatisticsKey, TableStatistics> statisticsCache;
+    private final Set<OpenGeminiStatisticsKey> loadingStatistics = ConcurrentHashMap.newKeySet();
+    // {schema, rp, table} -> nanos after which a failed load of statistics is retried
+    private final Map<OpenGeminiStatisticsKey, Long> statisticsRetryNanos = new ConcurrentHashMap<>();
+    private final long statisticsRefreshNanos;
+
+    private final ExecutorService refreshExecutor;
+    private final OpenGeminiCacheStatsMBean schemaCacheStats;
+    private final OpenGeminiCacheStatsMBean tableCacheStats;
+    private final OpenGeminiCacheStatsMBean rpCacheStats;
+    private final OpenGeminiCacheStatsMBean columnCacheStats;
+    private final OpenGeminiCacheStatsMBean statisticsCacheStats;
 
     private final int chunkSize;
     private final Duration chunkPollTimeout;
+    private final long maxBufferBytes;
+    private final boolean writeCompressionEnabled;
+    private final boolean queryCompressionEnabled;
+    private final OpenGeminiCompressionStats compressionStats = new OpenGeminiCompressionStats();
+    private final int writeMaxRetries;
+    private final long writeRetryInitialDelayMillis;
+    private final long writeRetryMaxDelayMillis;
+    private final boolean ignoreRejectedPoints;
+    private final OpenGeminiWriteStats writeStats = new OpenGeminiWriteStats();
 
     @Inject
     public OpenGeminiSession(OpenGeminiConfig config)
     {
-        db = Suppliers.memoize(connect(config));
-
-        long expireMillis = config.getCacheExpireDuration().toMillis();
-        schemaCache = buildNonEvictableCache(
-                CacheBuilder.newBuilder().expireAfterWrite(expireMillis, TimeUnit.MILLISECONDS),
-                CacheLoader.from(this::loadSchemaNames));
-        tableCache = buildNonEvictableCache(
-                CacheBuilder.newBuilder().expireAfterWrite(expireMillis, TimeUnit.MILLISECONDS),
-                CacheLoader.from(this::loadTableNames));
-        rpCache = buildNonEvictableCache(
-                CacheBuilder.newBuilder().expireAfterWrite(expireMillis, TimeUnit.MILLISECONDS),
-                CacheLoader.from(this::loadDefaultRpName));
-        columnCache = buildNonEvictableCache(
-                CacheBuilder.newBuilder().expireAfterWrite(expireMillis, TimeUnit.MILLISECONDS),
-                CacheLoader.from(this::loadColumns));
+        httpClient = Suppliers.memoize(httpClient(config));
+        chunkQueryClient = Suppliers.memoize(chunkQueryClient(httpClient));
+        db = Suppliers.memoize(connect(config, httpClient));
+        statisticsDb = Suppliers.memoize(connect(config, httpClient, config.getStatisticsTimeout()));
+        writeQueryDb = Suppliers.memoize(connect(config, httpClient, config.getWriteQueryTimeout()));
+        queryUrl = HttpUrl.get(config.getEndpoint()).newBuilder().addPathSegment("query").build();
+        writeUrl = HttpUrl.get(config.getEndpoint()).newBuilder().addPathSegment("write").build();
+        username = config.getUsername();
+        password = config.getPassword();
+
+        // reloads run in a bounded pool, so that planning threads are not blocked by expired entries
+        refreshExecutor = Executors.newFixedThreadPool(
+                config.getCacheRefreshThreads(),
+                new ThreadFactoryBuilder().setNameFormat("opengemini-cache-refresh-%s").setDaemon(true).build());
+        schemaCache = buildCache(config, this::loadSchemaNames);
+        tableCache = buildCache(config, this::loadTableNames);
+        rpCache = buildCache(config, this::loadDefaultRpName);
+        columnCache = buildCache(config, this::loadColumns);
+        statisticsRefreshNanos = config.getStatisticsRefreshInterval().roundTo(TimeUnit.NANOSECONDS);
+        statisticsCache = buildStatisticsCache(config);
+        schemaCacheStats = new OpenGeminiCacheStatsMBean(schemaCache);
+        tableCacheStats = new OpenGeminiCacheStatsMBean(tableCache);
+        rpCacheStats = new OpenGeminiCacheStatsMBean(rpCache);
+        columnCacheStats = new OpenGeminiCacheStatsMBean(columnCache);
+        statisticsCacheStats = new OpenGeminiCacheStatsMBean(statisticsCache);
 
         chunkSize = config.getChunkSize();
         chunkPollTimeout = config.getChunkPollTimeout();
+        maxBufferBytes = config.getMaxBufferSize().toBytes();
+        writeCompressionEnabled = config.isWriteCompressionEnabled();
+        queryCompressionEnabled = config.isQueryCompressionEnabled();
+        writeMaxRetries = config.getWriteMaxRetries();
+        writeRetryInitialDelayMillis = Math.max(config.getWriteRetryInitialDelay().toMillis(), 1);
+        writeRetryMaxDelayMillis = Math.max(config.getWriteRetryMaxDelay().toMillis(), writeRetryInitialDelayMillis);
+        ignoreRejectedPoints = config.isWriteIgnoreRejectedPoints();
     }
 
-    public static Supplier<InfluxDB> connect(OpenGeminiConfig config)
+    private <K, V> NonEvictableLoadingCache<K, V> buildCache(OpenGeminiConfig config, Function<K, V> loader)
+    {
+        return buildNonEvictableCache(
+                CacheBuilder.newBuilder()
+                        .expireAfterWrite(config.getCacheExpireDuration().toMillis(), TimeUnit.MILLISECONDS)
+                        .refreshAfterWrite(config.getCacheRefreshInterval().toMillis(), TimeUnit.MILLISECONDS)
+                        .maximumSize(config.getCacheMaximumSize())
+                        .recordStats(),
+                CacheLoader.asyncReloading(CacheLoader.from(loader::apply), refreshExecutor));
+    }
+
+    // statistics are refreshed much less often than the metadata, and a failed refresh keeps the old statistics
+    // until the next refresh interval, instead of being retried by every planning of the table
+    private NonEvictableLoadingCache<OpenGeminiStatisticsKey, TableStatistics> buildStatisticsCache(OpenGeminiConfig config)
+    {
+        long refreshMillis = config.getStatisticsRefreshInterval().toMillis();
+        return buildNonEvictableCache(
+                CacheBuilder.newBuilder()
+                        .expireAfterWrite(2 * refreshMillis, TimeUnit.MILLISECONDS)
+                        .refreshAfterWrite(refreshMillis, TimeUnit.MILLISECONDS)
+                        .maximumSize(config.getCacheMaximumSize())
+                        .recordStats(),
+                CacheLoader.asyncReloading(new CacheLoader<>()
+                {
+                    @Override
+                    public TableStatistics load(OpenGeminiStatisticsKey key)
+                    {
+                        return loadTableStatistics(key);
+                    }
+
+                    @Override
+                    public ListenableFuture<TableStatistics> reload(OpenGeminiStatisticsKey key, TableStatistics oldValue)
+                    {
+                        try {
+                            return immediateFuture(loadTableStatistics(key));
+                        }
+                        catch (RuntimeException e) {
+                            log.warn(e, "failed to refresh statistics of %s.%s", key.schema(), key.tableName());
+                            return immediateFuture(oldValue);
+                        }
+                    }
+                }, refreshExecutor));
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Managed
+    @Nested
+    public OpenGeminiCacheStatsMBean getSchemaCacheStats()
+    {
+        return schemaCacheStats;
+    }
+
+    @Managed
+    @Nested
+    public OpenGeminiCacheStatsMBean getTableCacheStats()
+    {
+        return tableCacheStats;
+    }
+
+    @Managed
+    @Nested
+    public OpenGeminiCacheStatsMBean getRpCacheStats()
+    {
+        return rpCacheStats;
+    }
+
+    @Managed
+    @Nested
+    public OpenGeminiCacheStatsMBean getColumnCacheStats()
+    {
+        return columnCacheStats;
+    }
+
+    @Managed
+    @Nested
+    public OpenGeminiCacheStatsMBean getStatisticsCacheStats()
+    {
+        return statisticsCacheStats;
+    }
+
+    @Managed
+    @Nested
+    public OpenGeminiCompressionStats getCompressionStats()
+    {
+        return compressionStats;
+    }
+
+    @Managed
+    @Nested
+    public OpenGeminiWriteStats getWriteStats()
+    {
+        return writeStats;
+    }
+
+    public static Supplier<OkHttpClient> httpClient(OpenGeminiConfig config)
     {
         return () -> {
             OkHttpClient.Builder client = new OkHttpClient.Builder()
@@ -114,6 +305,11 @@ public class OpenGeminiSession
                     .writeTimeout(config.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS)
                     .readTimeout(config.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS)
                     .retryOnConnectionFailure(true);
+            // chunk queries are sent asynchronously and all go to the same host, one per split,
+            // so don't queue them behind the default limit of 5 requests per host
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequestsPerHost(dispatcher.getMaxRequests());
+            client.dispatcher(dispatcher);
             if (!config.getKeepalive()) {
                 client.addNetworkInterceptor(chain -> {
                     // use http short connection
@@ -122,32 +318,237 @@ public class OpenGeminiSession
                 });
             }
 
-            String url = config.getEndpoint().toString();
-            if (url.startsWith("https://")) {
+            if (config.getEndpoint().toString().startsWith("https://")) {
                 client.sslSocketFactory(defaultSslSocketFactory(), defaultTrustManager());
                 client.hostnameVerifier(noopHostnameVerifier());
             }
+            return client.build();
+        };
+    }
+
+    // chunk queries have their own dispatcher without a limit of requests. a callback waiting for a slow consumer holds
+    // a request of the dispatcher, so capped requests would queue new scans behind stalled ones, and the writes of
+    // insert ... select behind the reads waiting for the sink
+    private static Supplier<OkHttpClient> chunkQueryClient(Supplier<OkHttpClient> httpClient)
+    {
+        return () -> {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(Integer.MAX_VALUE);
+            dispatcher.setMaxRequestsPerHost(Integer.MAX_VALUE);
+            return httpClient.get().newBuilder().dispatcher(dispatcher).build();
+        };
+    }
+
+    public static Supplier<InfluxDB> connect(OpenGeminiConfig config, Supplier<OkHttpClient> httpClient)
+    {
+        return () -> {
+            String url = config.getEndpoint().toString();
             log.info("sessin connect, url: %s, user: %s, keepalive: %s", url, config.getUsername(), config.getKeepalive());
-            return InfluxDBFactory.connect(url, config.getUsername(), config.getPassword(), client);
+            // influxdb-java adds its interceptors to the builder, the new builder shares connections and threads with the client
+            return InfluxDBFactory.connect(url, config.getUsername(), config.getPassword(), httpClient.get().newBuilder());
         };
     }
 
-    public void writePoints(BatchPoints batchPoints)
+    // client of statements which may run longer than the read timeout, the whole call is bounded by the timeout
+    public static Supplier<InfluxDB> connect(OpenGeminiConfig config, Supplier<OkHttpClient> httpClient, Duration timeout)
     {
-        db.get().write(batchPoints);
+        return () -> InfluxDBFactory.connect(config.getEndpoint().toString(), config.getUsername(), config.getPassword(), httpClient.get().newBuilder()
+                .readTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .callTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS));
     }
 
-    public OpenGeminiQueryResultIterator queryResultByChunk(String schema, String sql)
+    // write points encoded in line protocol asynchronously, cancelling the future cancels the request
+    public CompletableFuture<Void> writeLines(String schema, String rp, Slice lines, int points)
     {
-        BlockingQueue<QueryResult> queue = new LinkedBlockingQueue<>();
-        db.get().query(new Query(sql, schema), chunkSize, new Consumer<QueryResult>() {
+        HttpUrl url = writeUrl.newBuilder()
+                .addQueryParameter("db", schema)
+                .addQueryParameter("rp", rp)
+                .addQueryParameter("precision", "ns")
+                .build();
+        Request.Builder request = new Request.Builder()
+                .url(url)
+                .header("Authorization", Credentials.basic(username, password));
+        Slice body = lines;
+        if (writeCompressionEnabled) {
+            body = gzip(lines);
+            request.header("Content-Encoding", "gzip");
+        }
+        compressionStats.addWrite(lines.length(), body.length());
+        request.post(RequestBody.create(LINE_PROTOCOL, body.byteArray(), body.byteArrayOffset(), body.length()));
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        long startNanos = System.nanoTime();
+        future.thenRun(() -> writeStats.addWrittenBatch(points, lines.length(), System.nanoTime() - startNanos));
+        sendWrite(request.build(), 0, future);
+        return future;
+    }
+
+    private void sendWrite(Request request, int attempt, CompletableFuture<Void> future)
+    {
+        // cancelled while waiting for the retry
+        if (future.isDone()) {
+            return;
+        }
+        Call call = httpClient.get().newCall(request);
+        future.whenComplete((result, throwable) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback()
+        {
             @Override
-            public void accept(QueryResult result)
+            public void onFailure(Call call, IOException e)
             {
-                queue.add(result);
+                retryWrite(request, attempt, future, e, OptionalLong.empty());
+            }
+
+            @Override
+            public void onResponse(Call call, Response response)
+            {
+                try (ResponseBody body = response.body()) {
+                    if (response.isSuccessful()) {
+                        future.complete(null);
+                        return;
+                    }
+                    String message = errorMessage(response);
+                    RuntimeException exception = new RuntimeException("write failed with status " + response.code() + ": " + message);
+                    // overloaded or unavailable for now
+                    if (response.code() == 429 || response.code() >= 500) {
+                        retryWrite(request, attempt, future, exception, retryAfterMillis(response));
+                        return;
+                    }
+                    // the other points of a partial write are written, so it is not retried
+                    Matcher dropped = DROPPED_POINTS.matcher(message);
+                    if (message.contains("partial write") && dropped.find()) {
+                        writeStats.addRejectedPoints(Long.parseLong(dropped.group(1)));
+                        if (ignoreRejectedPoints) {
+                            log.warn("points are rejected: %s", message);
+                            future.complete(null);
+                            return;
+                        }
+                    }
+                    writeStats.addFailedWrite();
+                    future.completeExceptionally(exception);
+                }
+                catch (IOException | RuntimeException e) {
+                    retryWrite(request, attempt, future, e, OptionalLong.empty());
+                }
             }
         });
-        return new OpenGeminiQueryResultIterator(queue, chunkPollTimeout);
+    }
+
+    private void retryWrite(Request request, int attempt, CompletableFuture<Void> future, Exception exception, OptionalLong retryAfterMillis)
+    {
+        if (future.isDone()) {
+            return;
+        }
+        if (attempt >= writeMaxRetries) {
+            writeStats.addFailedWrite();
+            future.completeExceptionally(exception);
+            return;
+        }
+        // exponential backoff with jitter, so that the writers do not retry all at once
+        long backoffMillis = Math.min(writeRetryMaxDelayMillis, writeRetryInitialDelayMillis << Math.min(attempt, 30));
+        long delayMillis = Math.min(writeRetryMaxDelayMillis, retryAfterMillis.orElse(ThreadLocalRandom.current().nextLong(backoffMillis / 2, backoffMillis + 1)));
+        writeStats.addRetry();
+        log.warn("write failed, retry %s in %sms: %s", attempt + 1, delayMillis, exception.getMessage());
+        CompletableFuture.runAsync(() -> sendWrite(request, attempt + 1, future), CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    // Retry-After in seconds
+    private static OptionalLong retryAfterMillis(Response response)
+    {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter == null || !retryAfter.trim().matches("\\d+")) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+    }
+
+    // the response is decoded into pages on the http client threads, so that no driver thread waits for it
+    public OpenGeminiPageBuffer queryByChunk(String schema, String sql, OpenGeminiPageDecoder decoder)
+    {
+        HttpUrl.Builder url = queryUrl.newBuilder()
+                .addQueryParameter("db", schema)
+                .addQueryParameter("chunked", "true")
+                // time is returned as epoch nanos, which is decoded without parsing dates
+                .addQueryParameter("epoch", "ns");
+        if (chunkSize > 0) {
+            url.addQueryParameter("chunk_size", String.valueOf(chunkSize));
+        }
+        // sql is sent in the body, as it can be too long for the url with many tag values
+        // the response is decompressed here instead of transparently by OkHttp, to measure the compression
+        Request request = new Request.Builder()
+                .url(url.build())
+                .header("Authorization", Credentials.basic(username, password))
+                .header("Accept-Encoding", queryCompressionEnabled ? "gzip" : "identity")
+                .post(new FormBody.Builder().add("q", sql).build())
+                .build();
+
+        OpenGeminiPageBuffer buffer = new OpenGeminiPageBuffer(chunkPollTimeout, maxBufferBytes);
+        Call call = chunkQueryClient.get().newCall(request);
+        buffer.setCall(call);
+        call.enqueue(new Callback()
+        {
+            @Override
+            public void onFailure(Call call, IOException e)
+            {
+                buffer.fail(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response)
+            {
+                buffer.responseReceived();
+                try (ResponseBody body = response.body()) {
+                    if (!response.isSuccessful()) {
+                        buffer.fail(new RuntimeException("query failed with status " + response.code() + ": " + errorMessage(response)));
+                        return;
+                    }
+                    OpenGeminiScanStats stats = buffer.getStats();
+                    InputStream compressed = stats.measure(body.byteStream());
+                    CountingInputStream uncompressed = new CountingInputStream(isGzip(response) ? new GZIPInputStream(compressed) : compressed);
+                    long start = System.nanoTime();
+                    try {
+                        decoder.decode(uncompressed, buffer::add);
+                    }
+                    finally {
+                        stats.addDecodeWallNanos(System.nanoTime() - start);
+                        compressionStats.addRead(uncompressed.getCount(), stats.getReceivedBytes());
+                    }
+                    buffer.finish();
+                }
+                catch (IOException | RuntimeException e) {
+                    buffer.fail(e);
+                }
+            }
+        });
+        return buffer;
+    }
+
+    private static boolean isGzip(Response response)
+    {
+        return "gzip".equalsIgnoreCase(response.header("Content-Encoding"));
+    }
+
+    private static String errorMessage(Response response)
+            throws IOException
+    {
+        InputStream body = response.body().byteStream();
+        return new String((isGzip(response) ? new GZIPInputStream(body) : body).readAllBytes(), UTF_8);
+    }
+
+    private static Slice gzip(Slice lines)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(lines.length() / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(lines.byteArray(), lines.byteArrayOffset(), lines.length());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.slice();
     }
 
     public QueryResult execute(String schema, String sql)
@@ -155,6 +556,12 @@ public class OpenGeminiSession
         return db.get().query(new Query(sql, schema));
     }
 
+    // statements which write, such as select into, must be sent by post, and may run for the whole write query timeout
+    public QueryResult executeWrite(String schema, String sql)
+    {
+        return writeQueryDb.get().query(new Query(sql, schema, true));
+    }
+
     private Set<String> loadSchemaNames(String key)
     {
         if (key.equals(SCHEMA_CACHE_KEY)) {
@@ -299,6 +706,20 @@ public class OpenGeminiSession
         return columns.build();
     }
 
+    // values of the tag in the retention policy which is scanned, not in the default one
+    public List<String> getTagValues(String schema, String rpName, String tableName, String tagKey)
+    {
+        String sql = "show tag values from " + toDoubleQuoted(rpName) + "." + toDoubleQuoted(tableName) + " with key = " + toDoubleQuoted(tagKey);
+        ImmutableList.Builder<String> tagValues = ImmutableList.builder();
+        // columns of the result are key and value
+        extractSeriesFromResp(execute(schema, sql)).forEach(s -> {
+            s.getValues().forEach(value -> {
+                tagValues.add(value.get(1).toString());
+            });
+        });
+        return tagValues.build();
+    }
+
     public OpenGeminiTable getTable(String schema, String tableName)
     {
         requireNonNull(schema, "schema is null");
@@ -311,6 +732,117 @@ public class OpenGeminiSession
         }
     }
 
+    // planning does not wait for the statistics, they are unknown until loaded in background
+    public TableStatistics getTableStatistics(String schema, String rpName, String tableName)
+    {
+        OpenGeminiStatisticsKey key = new OpenGeminiStatisticsKey(schema, rpName, tableName);
+        TableStatistics statistics = statisticsCache.getIfPresent(key);
+        if (statistics != null) {
+            return statistics;
+        }
+        // a failed load is not cached, and is retried by a query of the table after the refresh interval
+        Long retryNanos = statisticsRetryNanos.get(key);
+        if (retryNanos != null && System.nanoTime() - retryNanos < 0) {
+            return TableStatistics.empty();
+        }
+        if (loadingStatistics.add(key)) {
+            refreshExecutor.execute(() -> {
+                try {
+                    statisticsCache.get(key);
+                    statisticsRetryNanos.remove(key);
+                }
+                catch (ExecutionException | UncheckedExecutionException e) {
+                    statisticsRetryNanos.put(key, System.nanoTime() + statisticsRefreshNanos);
+                    log.warn(e, "failed to load statistics of %s.%s", schema, tableName);
+                }
+                finally {
+                    loadingStatistics.remove(key);
+                }
+            });
+        }
+        return TableStatistics.empty();
+    }
+
+    // statistics are collected by one request bounded by the statistics timeout, only from statements which do not scan the points:
+    // the series and the values of each tag counted from the index, and the first and the last point.
+    // the number of points is not counted, so the row count and the nulls fractions of fields are unknown.
+    // a statement not supported by the server only leaves its estimates unknown, other failures are thrown and not cached
+    private TableStatistics loadTableStatistics(OpenGeminiStatisticsKey key)
+    {
+        OpenGeminiTable table = getTable(key.schema(), key.tableName());
+        String from = toDoubleQuoted(key.rpName()) + "." + toDoubleQuoted(key.tableName());
+        List<OpenGeminiColumn> tags = table.getColumns().stream().filter(column -> column.getKind().equals(TAG_KIND)).toList();
+        ImmutableList.Builder<String> statements = ImmutableList.builder();
+        statements.add("select * from " + from + " limit 1");
+        statements.add("select * from " + from + " order by time desc limit 1");
+        statements.add("show series exact cardinality from " + from);
+        tags.forEach(tag -> statements.add("show tag values exact cardinality from " + from + " with key = " + toDoubleQuoted(tag.getName())));
+
+        // posted, as the statements of many tags may not fit in an url
+        QueryResult result = statisticsDb.get().query(new Query(String.join(";", statements.build()), key.schema(), true));
+        List<QueryResult.Result> results = result.getResults();
+        if (result.hasError() || results == null || results.size() != 3 + tags.size() || results.get(0).getError() != null) {
+            throw new RuntimeException(format("failed to load statistics of %s.%s: %s", key.schema(), key.tableName(), result.getError()));
+        }
+
+        Optional<Double> seriesCount = firstRow(results.get(2)).flatMap(OpenGeminiSession::firstNumber);
+
+        TableStatistics.Builder statistics = TableStatistics.builder();
+        for (OpenGeminiColumn column : table.getColumns()) {
+            OpenGeminiColumnHandle handle = new OpenGeminiColumnHandle(column.getName(), column.getType(), column.getKind());
+            ColumnStatistics.Builder columnStatistics = ColumnStatistics.builder();
+            if (column.getKind().equals(TIME_KIND)) {
+                columnStatistics.setNullsFraction(Estimate.zero());
+                Optional<Long> min = firstRow(results.get(0)).flatMap(OpenGeminiSession::rowTime);
+                Optional<Long> max = firstRow(results.get(1)).flatMap(OpenGeminiSession::rowTime);
+                if (min.isPresent() && max.isPresent()) {
+                    columnStatistics.setRange(DoubleRange.from(column.getType(), fromEpochNanos(min.get()), fromEpochNanos(max.get())));
+                }
+            }
+            else if (column.getKind().equals(TAG_KIND)) {
+                // values of a tag can not be more than the series
+                firstRow(results.get(3 + tags.indexOf(column)))
+                        .flatMap(OpenGeminiSession::firstNumber)
+                        .map(count -> seriesCount.map(series -> Math.min(count, series)).orElse(count))
+                        .ifPresent(count -> columnStatistics.setDistinctValuesCount(Estimate.of(count)));
+            }
+            statistics.setColumnStatistics(handle, columnStatistics.build());
+        }
+        return statistics.build();
+    }
+
+    private record Row(List<String> columns, List<Object> values) {}
+
+    private static Optional<Row> firstRow(QueryResult.Result result)
+    {
+        if (result.getError() != null || result.getSeries() == null || result.getSeries().isEmpty()) {
+            return Optional.empty();
+        }
+        QueryResult.Series series = result.getSeries().get(0);
+        if (series.getValues() == null || series.getValues().isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Row(series.getColumns(), series.getValues().get(0)));
+    }
+
+    private static Optional<Double> firstNumber(Row row)
+    {
+        if (row.values().isEmpty() || !(row.values().get(0) instanceof Number number)) {
+            return Optional.empty();
+        }
+        return Optional.of(number.doubleValue());
+    }
+
+    // time is returned in RFC3339 by the influxdb client
+    private static Optional<Long> rowTime(Row row)
+    {
+        int index = row.columns().indexOf("time");
+        if (index < 0 || !(row.values().get(index) instanceof String time)) {
+            return Optional.empty();
+        }
+        return Optional.of(OpenGeminiQLUtils.toEpochNanos(time));
+    }
+
     private static X509TrustManager defaultTrustManager()
     {
         return new X509TrustManager() {
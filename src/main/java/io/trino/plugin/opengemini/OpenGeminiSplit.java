@@ -18,7 +18,9 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 import io.trino.spi.HostAddress;
+import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ConnectorSplit;
+import io.trino.spi.predicate.TupleDomain;
 import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
@@ -34,12 +36,22 @@ public class OpenGeminiSplit
 
     private final boolean remotelyAccessible;
     private final List<HostAddress> addresses;
+    // the part of the scan read by this split, such as a time slice, intersected with the table constraint
+    private final TupleDomain<ColumnHandle> constraint;
+
+    public OpenGeminiSplit(List<HostAddress> addresses)
+    {
+        this(addresses, TupleDomain.all());
+    }
 
     @JsonCreator
-    public OpenGeminiSplit(@JsonProperty("addresses") List<HostAddress> addresses)
+    public OpenGeminiSplit(
+            @JsonProperty("addresses") List<HostAddress> addresses,
+            @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint)
     {
         this.remotelyAccessible = true;
         this.addresses = ImmutableList.copyOf(requireNonNull(addresses, "addresses is null"));
+        this.constraint = requireNonNull(constraint, "constraint is null");
     }
 
     @Override
@@ -56,6 +68,12 @@ public class OpenGeminiSplit
         return addresses;
     }
 
+    @JsonProperty
+    public TupleDomain<ColumnHandle> getConstraint()
+    {
+        return constraint;
+    }
+
     @Override
     public Object getInfo()
     {
@@ -65,6 +83,8 @@ public class OpenGeminiSplit
     @Override
     public long getRetainedSizeInBytes()
     {
-        return INSTANCE_SIZE + estimatedSizeOf(addresses, HostAddress::getRetainedSizeInBytes);
+        return INSTANCE_SIZE
+                + estimatedSizeOf(addresses, HostAddress::getRetainedSizeInBytes)
+                + constraint.getRetainedSizeInBytes(column -> ((OpenGeminiColumnHandle) column).getRetainedSizeInBytes());
     }
 }
@@ -15,7 +15,11 @@
 package io.trino.plugin.opengemini;
 
 import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
 import io.trino.spi.HostAddress;
+import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ConnectorSession;
 import io.trino.spi.connector.ConnectorSplit;
 import io.trino.spi.connector.ConnectorSplitManager;
@@ -25,23 +29,48 @@ import io.trino.spi.connector.ConnectorTransactionHandle;
 import io.trino.spi.connector.Constraint;
 import io.trino.spi.connector.DynamicFilter;
 import io.trino.spi.connector.FixedSplitSource;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.predicate.ValueSet;
+import io.trino.spi.type.LongTimestampWithTimeZone;
 
 import javax.inject.Inject;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.TAG_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.TIME_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiConfig.SplitStrategy.SERIES;
+import static io.trino.plugin.opengemini.OpenGeminiQLUtils.fromEpochNanos;
+import static io.trino.plugin.opengemini.OpenGeminiQLUtils.timeSpan;
+import static io.trino.plugin.opengemini.OpenGeminiQLUtils.toEpochNanos;
+import static io.trino.spi.type.TimestampWithTimeZoneType.TIMESTAMP_TZ_NANOS;
+import static io.trino.spi.type.Timestamps.NANOSECONDS_PER_SECOND;
+import static java.lang.Math.floorMod;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 public class OpenGeminiSplitManager
         implements ConnectorSplitManager
 {
+    private static final Logger log = Logger.get(OpenGeminiSplitManager.class);
+
+    private final OpenGeminiSession openGeminiSession;
     private final OpenGeminiConfig config;
 
     @Inject
-    public OpenGeminiSplitManager(OpenGeminiConfig config)
+    public OpenGeminiSplitManager(OpenGeminiSession openGeminiSession, OpenGeminiConfig config)
     {
+        this.openGeminiSession = requireNonNull(openGeminiSession, "openGeminiSession is null");
         this.config = requireNonNull(config, "config is null");
     }
 
@@ -53,10 +82,125 @@ public class OpenGeminiSplitManager
             DynamicFilter dynamicFilter,
             Constraint constraint)
     {
+        OpenGeminiTableHandle tableHandle = (OpenGeminiTableHandle) connectorTableHandle;
+        List<HostAddress> addresses = ImmutableList.of(HostAddress.fromUri(config.getEndpoint()));
+
+        List<TupleDomain<ColumnHandle>> slices;
+        if (tableHandle.getLimit() > 0 || tableHandle.isAggregated()) {
+            // the limit and aggregation are pushed down into each query, so they only hold with one query
+            slices = ImmutableList.of(TupleDomain.all());
+        }
+        else if (config.getSplitStrategy() == SERIES) {
+            slices = seriesSlices(tableHandle);
+        }
+        else {
+            slices = timeSlices(tableHandle);
+        }
+
         List<ConnectorSplit> splits = new ArrayList<>();
-        splits.add(new OpenGeminiSplit(ImmutableList.of(HostAddress.fromUri(config.getEndpoint()))));
+        for (TupleDomain<ColumnHandle> slice : slices) {
+            splits.add(new OpenGeminiSplit(addresses, slice));
+        }
         Collections.shuffle(splits);
 
         return new FixedSplitSource(splits);
     }
+
+    // cut the time range of the scan into [start, end) slices, the first and the last slices are left open
+    // so that the bounds of the table constraint still apply to them when intersected
+    private List<TupleDomain<ColumnHandle>> timeSlices(OpenGeminiTableHandle tableHandle)
+    {
+        Optional<Range> span = timeSpan(tableHandle.getConstraint());
+        if (span.isEmpty() || span.get().isLowUnbounded()) {
+            return ImmutableList.of(TupleDomain.all());
+        }
+        long start = toEpochNanos((LongTimestampWithTimeZone) span.get().getLowBoundedValue());
+        long end = span.get().isHighUnbounded() ? currentTimeNanos() : toEpochNanos((LongTimestampWithTimeZone) span.get().getHighBoundedValue());
+
+        long minSplitNanos = config.getMinSplitDuration().roundTo(NANOSECONDS);
+        int count = (int) min(config.getMaxSplits(), max(end - start, 0) / max(minSplitNanos, 1));
+        if (count <= 1) {
+            return ImmutableList.of(TupleDomain.all());
+        }
+
+        ColumnHandle timeColumn = new OpenGeminiColumnHandle("time", TIMESTAMP_TZ_NANOS, TIME_KIND);
+        long step = (end - start) / count;
+        ImmutableList.Builder<TupleDomain<ColumnHandle>> slices = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            Range range;
+            if (i == 0) {
+                range = Range.lessThan(TIMESTAMP_TZ_NANOS, fromEpochNanos(start + step));
+            }
+            else if (i == count - 1) {
+                range = Range.greaterThanOrEqual(TIMESTAMP_TZ_NANOS, fromEpochNanos(start + i * step));
+            }
+            else {
+                range = Range.range(TIMESTAMP_TZ_NANOS, fromEpochNanos(start + i * step), true, fromEpochNanos(start + (i + 1) * step), false);
+            }
+            slices.add(TupleDomain.withColumnDomains(Map.of(timeColumn, Domain.create(ValueSet.ofRanges(range), false))));
+        }
+        log.info("cut scan of %s into %s time slices, step: %sns", tableHandle, count, step);
+        return slices.build();
+    }
+
+    // shard the values of the partition tag by hash, each slice reads the series of one shard;
+    // series without the tag are read by the first slice
+    private List<TupleDomain<ColumnHandle>> seriesSlices(OpenGeminiTableHandle tableHandle)
+    {
+        Optional<OpenGeminiColumn> partitionTag = getPartitionTag(tableHandle);
+        if (partitionTag.isEmpty()) {
+            log.warn("no partition tag for %s, fall back to time slices", tableHandle);
+            return timeSlices(tableHandle);
+        }
+
+        ColumnHandle tagColumn = new OpenGeminiColumnHandle(partitionTag.get().getName(), partitionTag.get().getType(), TAG_KIND);
+        Domain tagDomain = tableHandle.getConstraint().getDomains()
+                .map(domains -> domains.get(tagColumn))
+                .orElse(null);
+
+        List<Slice> tagValues = openGeminiSession.getTagValues(tableHandle.getSchemaName(), tableHandle.getRpName(), tableHandle.getTableName(), partitionTag.get().getName()).stream()
+                .map(Slices::utf8Slice)
+                .filter(value -> tagDomain == null || tagDomain.includesNullableValue(value))
+                .toList();
+        int count = min(config.getMaxSplits(), tagValues.size());
+        if (count <= 1) {
+            return ImmutableList.of(TupleDomain.all());
+        }
+
+        List<List<Slice>> shards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (Slice value : tagValues) {
+            shards.get(floorMod(value.hashCode(), count)).add(value);
+        }
+
+        ImmutableList.Builder<TupleDomain<ColumnHandle>> slices = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            if (shards.get(i).isEmpty() && i != 0) {
+                continue;
+            }
+            Domain domain = shards.get(i).isEmpty()
+                    ? Domain.onlyNull(partitionTag.get().getType())
+                    : Domain.multipleValues(partitionTag.get().getType(), shards.get(i), i == 0);
+            slices.add(TupleDomain.withColumnDomains(Map.of(tagColumn, domain)));
+        }
+        log.info("shard scan of %s into %s series slices by tag %s", tableHandle, count, partitionTag.get().getName());
+        return slices.build();
+    }
+
+    private Optional<OpenGeminiColumn> getPartitionTag(OpenGeminiTableHandle tableHandle)
+    {
+        OpenGeminiTable table = openGeminiSession.getTable(tableHandle.getSchemaName(), tableHandle.getTableName());
+        return table.getColumns().stream()
+                .filter(column -> column.getKind().equals(TAG_KIND))
+                .filter(column -> isNullOrEmpty(config.getPartitionTag()) || column.getName().equals(config.getPartitionTag()))
+                .findFirst();
+    }
+
+    private static long currentTimeNanos()
+    {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * NANOSECONDS_PER_SECOND + now.getNano();
+    }
 }
@@ -16,12 +16,15 @@ package io.trino.plugin.opengemini;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ConnectorTableHandle;
 import io.trino.spi.connector.SchemaTableName;
 import io.trino.spi.predicate.TupleDomain;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 
@@ -32,15 +35,25 @@ public final class OpenGeminiTableHandle
     private final String rpName;
     private final String tableName;
     private final TupleDomain<ColumnHandle> constraint;
+    // InfluxQL conditions translated from the filter expression, such as regex matching, and-ed with the constraint
+    private final List<String> conditions;
     private final long limit;
     private final boolean ascending;
+    // field of a top-n pushed down as TOP() or BOTTOM(), which returns the limit points of the largest or smallest values
+    private final Optional<OpenGeminiColumnHandle> sortColumn;
+    private final boolean sortAscending;
+    // aggregate functions pushed down, the query returns one row per group of tags if not empty
+    private final List<OpenGeminiColumnHandle> aggregates;
+    private final List<OpenGeminiColumnHandle> groupingColumns;
+    // columns selected from openGemini after pruning the unused ones, all columns are selected if empty
+    private final List<OpenGeminiColumnHandle> projectedColumns;
 
     public OpenGeminiTableHandle(
             @JsonProperty("schemaName") String schemaName,
             @JsonProperty("rpName") String rpName,
             @JsonProperty("tableName") String tableName)
     {
-        this(schemaName, rpName, tableName, TupleDomain.all(), 0, true);
+        this(schemaName, rpName, tableName, TupleDomain.all(), ImmutableList.of(), 0, true, Optional.empty(), false, ImmutableList.of(), ImmutableList.of(), ImmutableList.of());
     }
 
     @JsonCreator
@@ -49,30 +62,57 @@ public final class OpenGeminiTableHandle
             @JsonProperty("rpName") String rpName,
             @JsonProperty("tableName") String tableName,
             @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint,
+            @JsonProperty("conditions") List<String> conditions,
             @JsonProperty("limit") long limit,
-            @JsonProperty("ascending") boolean ascending)
+            @JsonProperty("ascending") boolean ascending,
+            @JsonProperty("sortColumn") Optional<OpenGeminiColumnHandle> sortColumn,
+            @JsonProperty("sortAscending") boolean sortAscending,
+            @JsonProperty("aggregates") List<OpenGeminiColumnHandle> aggregates,
+            @JsonProperty("groupingColumns") List<OpenGeminiColumnHandle> groupingColumns,
+            @JsonProperty("projectedColumns") List<OpenGeminiColumnHandle> projectedColumns)
     {
         this.schemaName = requireNonNull(schemaName, "schemaName is null");
         this.rpName = requireNonNull(rpName, "schemaName is null");
         this.tableName = requireNonNull(tableName, "tableName is null");
         this.constraint = requireNonNull(constraint, "constraint is null");
+        this.conditions = ImmutableList.copyOf(requireNonNull(conditions, "conditions is null"));
         this.limit = limit;
         this.ascending = ascending;
+        this.sortColumn = requireNonNull(sortColumn, "sortColumn is null");
+        this.sortAscending = sortAscending;
+        this.aggregates = ImmutableList.copyOf(requireNonNull(aggregates, "aggregates is null"));
+        this.groupingColumns = ImmutableList.copyOf(requireNonNull(groupingColumns, "groupingColumns is null"));
+        this.projectedColumns = ImmutableList.copyOf(requireNonNull(projectedColumns, "projectedColumns is null"));
     }
 
-    public OpenGeminiTableHandle withConstraint(TupleDomain<ColumnHandle> constraint)
+    public OpenGeminiTableHandle withConstraint(TupleDomain<ColumnHandle> constraint, List<String> conditions)
     {
-        return new OpenGeminiTableHandle(this.schemaName, this.rpName, this.tableName, constraint, this.limit, this.ascending);
+        return new OpenGeminiTableHandle(this.schemaName, this.rpName, this.tableName, constraint, conditions, this.limit, this.ascending, this.sortColumn, this.sortAscending, this.aggregates, this.groupingColumns, this.projectedColumns);
     }
 
     public OpenGeminiTableHandle withLimit(long limit)
     {
-        return new OpenGeminiTableHandle(this.schemaName, this.rpName, this.tableName, this.constraint, limit, this.ascending);
+        return new OpenGeminiTableHandle(this.schemaName, this.rpName, this.tableName, this.constraint, this.conditions, limit, this.ascending, this.sortColumn, this.sortAscending, this.aggregates, this.groupingColumns, this.projectedColumns);
     }
 
     public OpenGeminiTableHandle withAscending(boolean ascending)
     {
-        return new OpenGeminiTableHandle(this.schemaName, this.rpName, this.tableName, this.constraint, this.limit, ascending);
+        return new OpenGeminiTableHandle(this.schemaName, this.rpName, this.tableName, this.constraint, this.conditions, this.limit, ascending, this.sortColumn, this.sortAscending, this.aggregates, this.groupingColumns, this.projectedColumns);
+    }
+
+    public OpenGeminiTableHandle withAggregation(List<OpenGeminiColumnHandle> aggregates, List<OpenGeminiColumnHandle> groupingColumns)
+    {
+        return new OpenGeminiTableHandle(this.schemaName, this.rpName, this.tableName, this.constraint, this.conditions, this.limit, this.ascending, this.sortColumn, this.sortAscending, aggregates, groupingColumns, this.projectedColumns);
+    }
+
+    public OpenGeminiTableHandle withProjectedColumns(List<OpenGeminiColumnHandle> projectedColumns)
+    {
+        return new OpenGeminiTableHandle(this.schemaName, this.rpName, this.tableName, this.constraint, this.conditions, this.limit, this.ascending, this.sortColumn, this.sortAscending, this.aggregates, this.groupingColumns, projectedColumns);
+    }
+
+    public OpenGeminiTableHandle withSort(Optional<OpenGeminiColumnHandle> sortColumn, boolean sortAscending)
+    {
+        return new OpenGeminiTableHandle(this.schemaName, this.rpName, this.tableName, this.constraint, this.conditions, this.limit, this.ascending, sortColumn, sortAscending, this.aggregates, this.groupingColumns, this.projectedColumns);
     }
 
     @JsonProperty
@@ -99,6 +139,12 @@ public final class OpenGeminiTableHandle
         return constraint;
     }
 
+    @JsonProperty
+    public List<String> getConditions()
+    {
+        return conditions;
+    }
+
     @JsonProperty
     public long getLimit()
     {
@@ -111,6 +157,41 @@ public final class OpenGeminiTableHandle
         return ascending;
     }
 
+    @JsonProperty
+    public Optional<OpenGeminiColumnHandle> getSortColumn()
+    {
+        return sortColumn;
+    }
+
+    @JsonProperty
+    public boolean getSortAscending()
+    {
+        return sortAscending;
+    }
+
+    @JsonProperty
+    public List<OpenGeminiColumnHandle> getAggregates()
+    {
+        return aggregates;
+    }
+
+    @JsonProperty
+    public List<OpenGeminiColumnHandle> getGroupingColumns()
+    {
+        return groupingColumns;
+    }
+
+    @JsonProperty
+    public List<OpenGeminiColumnHandle> getProjectedColumns()
+    {
+        return projectedColumns;
+    }
+
+    public boolean isAggregated()
+    {
+        return !aggregates.isEmpty();
+    }
+
     public SchemaTableName toSchemaTableName()
     {
         return new SchemaTableName(schemaName, tableName);
@@ -119,7 +200,7 @@ public final class OpenGeminiTableHandle
     @Override
     public int hashCode()
     {
-        return Objects.hash(schemaName, rpName, tableName);
+        return Objects.hash(schemaName, rpName, tableName, constraint, conditions, limit, ascending, sortColumn, sortAscending, aggregates, groupingColumns, projectedColumns);
     }
 
     @Override
@@ -135,7 +216,16 @@ public final class OpenGeminiTableHandle
         OpenGeminiTableHandle other = (OpenGeminiTableHandle) obj;
         return Objects.equals(this.schemaName, other.schemaName) &&
                 Objects.equals(this.rpName, other.rpName) &&
-                Objects.equals(this.tableName, other.tableName);
+                Objects.equals(this.tableName, other.tableName) &&
+                Objects.equals(this.constraint, other.constraint) &&
+                Objects.equals(this.conditions, other.conditions) &&
+                this.limit == other.limit &&
+                this.ascending == other.ascending &&
+                Objects.equals(this.sortColumn, other.sortColumn) &&
+                this.sortAscending == other.sortAscending &&
+                Objects.equals(this.aggregates, other.aggregates) &&
+                Objects.equals(this.groupingColumns, other.groupingColumns) &&
+                Objects.equals(this.projectedColumns, other.projectedColumns);
     }
 
     @Override
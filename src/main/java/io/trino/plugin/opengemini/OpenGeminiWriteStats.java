@@ -0,0 +1,104 @@
+/* Copyright 2024 Huawei Cloud Computing Technologies Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.opengemini;
+
+import io.airlift.stats.TimeStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+// outcome of the write requests sent by all page sinks
+public class OpenGeminiWriteStats
+{
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong rejectedPoints = new AtomicLong();
+    private final AtomicLong writtenBatches = new AtomicLong();
+    private final AtomicLong writtenPoints = new AtomicLong();
+    private final AtomicLong writtenBytes = new AtomicLong();
+    // from sending a batch to its success, including retries
+    private final TimeStat writeTime = new TimeStat(MILLISECONDS);
+
+    public void addRetry()
+    {
+        retries.incrementAndGet();
+    }
+
+    public void addFailedWrite()
+    {
+        failedWrites.incrementAndGet();
+    }
+
+    public void addRejectedPoints(long points)
+    {
+        rejectedPoints.addAndGet(points);
+    }
+
+    public void addWrittenBatch(long points, long bytes, long nanos)
+    {
+        writtenBatches.incrementAndGet();
+        writtenPoints.addAndGet(points);
+        writtenBytes.addAndGet(bytes);
+        writeTime.addNanos(nanos);
+    }
+
+    @Managed
+    public long getWrittenBatches()
+    {
+        return writtenBatches.get();
+    }
+
+    @Managed
+    public long getWrittenPoints()
+    {
+        return writtenPoints.get();
+    }
+
+    // line protocol bytes before compression
+    @Managed
+    public long getWrittenBytes()
+    {
+        return writtenBytes.get();
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getWriteTime()
+    {
+        return writeTime;
+    }
+
+    @Managed
+    public long getRetries()
+    {
+        return retries.get();
+    }
+
+    @Managed
+    public long getFailedWrites()
+    {
+        return failedWrites.get();
+    }
+
+    // points dropped by openGemini in partial writes, e.g. for field type conflicts
+    @Managed
+    public long getRejectedPoints()
+    {
+        return rejectedPoints.get();
+    }
+}
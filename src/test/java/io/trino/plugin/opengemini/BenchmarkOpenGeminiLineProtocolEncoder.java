@@ -0,0 +1,204 @@
+/* Copyright 2024 Huawei Cloud Computing Technologies Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.opengemini;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.trino.spi.Page;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.type.LongTimestampWithTimeZone;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.FIELD_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.TAG_KIND;
+import static io.trino.plugin.opengemini.OpenGeminiColumn.TIME_KIND;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.BooleanType.BOOLEAN;
+import static io.trino.spi.type.DoubleType.DOUBLE;
+import static io.trino.spi.type.TimeZoneKey.UTC_KEY;
+import static io.trino.spi.type.TimestampWithTimeZoneType.TIMESTAMP_TZ_NANOS;
+import static io.trino.spi.type.Timestamps.NANOSECONDS_PER_MILLISECOND;
+import static io.trino.spi.type.Timestamps.PICOSECONDS_PER_NANOSECOND;
+import static io.trino.spi.type.Timestamps.roundDiv;
+import static io.trino.spi.type.VarcharType.createUnboundedVarcharType;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+// compares the encoder of the page sink with the points built per row before it
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 500, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OperationsPerInvocation(BenchmarkOpenGeminiLineProtocolEncoder.ROWS)
+public class BenchmarkOpenGeminiLineProtocolEncoder
+{
+    static final int ROWS = 4096;
+
+    // fields of one type, or of all the types which the encoder dispatches on
+    @Param({"double", "mixed"})
+    private String fields = "mixed";
+
+    private List<String> columnNames;
+    private List<Type> columnTypes;
+    private List<String> columnKinds;
+    private Page page;
+    private OpenGeminiLineProtocolEncoder encoder;
+    private final DynamicSliceOutput output = new DynamicSliceOutput(1024 * 1024);
+
+    @Setup
+    public void setup()
+    {
+        ImmutableList.Builder<String> names = ImmutableList.<String>builder().add("time", "host", "region");
+        ImmutableList.Builder<Type> types = ImmutableList.<Type>builder().add(TIMESTAMP_TZ_NANOS, createUnboundedVarcharType(), createUnboundedVarcharType());
+        ImmutableList.Builder<String> kinds = ImmutableList.<String>builder().add(TIME_KIND, TAG_KIND, TAG_KIND);
+        if (fields.equals("double")) {
+            names.add("usage_user", "usage_system", "usage_idle", "usage_iowait");
+            types.add(DOUBLE, DOUBLE, DOUBLE, DOUBLE);
+        }
+        else {
+            names.add("usage", "count", "ok", "message");
+            types.add(DOUBLE, BIGINT, BOOLEAN, createUnboundedVarcharType());
+        }
+        kinds.add(FIELD_KIND, FIELD_KIND, FIELD_KIND, FIELD_KIND);
+        columnNames = names.build();
+        columnTypes = types.build();
+        columnKinds = kinds.build();
+
+        Random random = new Random(42);
+        Block[] blocks = new Block[columnTypes.size()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            Type type = columnTypes.get(channel);
+            BlockBuilder block = type.createBlockBuilder(null, ROWS);
+            for (int row = 0; row < ROWS; row++) {
+                if (type.equals(TIMESTAMP_TZ_NANOS)) {
+                    type.writeObject(block, LongTimestampWithTimeZone.fromEpochMillisAndFraction(1_700_000_000_000L + row, random.nextInt(1000) * 1000, UTC_KEY));
+                }
+                else if (type instanceof VarcharType) {
+                    type.writeSlice(block, utf8Slice(columnNames.get(channel) + "-" + random.nextInt(100) + (random.nextInt(10) == 0 ? " a,b=c" : "")));
+                }
+                else if (type.equals(DOUBLE)) {
+                    type.writeDouble(block, random.nextDouble() * 100);
+                }
+                else if (type.equals(BIGINT)) {
+                    type.writeLong(block, random.nextLong());
+                }
+                else {
+                    type.writeBoolean(block, random.nextBoolean());
+                }
+            }
+            blocks[channel] = block.build();
+        }
+        page = new Page(blocks);
+        encoder = new OpenGeminiLineProtocolEncoder("cpu", columnNames, columnTypes, columnKinds);
+    }
+
+    @Benchmark
+    public int encoder()
+    {
+        output.reset();
+        encoder.encode(page, output);
+        return output.size();
+    }
+
+    @Benchmark
+    public int points()
+    {
+        output.reset();
+        BatchPoints batchPoints = BatchPoints.database("db").retentionPolicy("autogen").build();
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            batchPoints.point(point(position));
+        }
+        output.writeBytes(batchPoints.lineProtocol().getBytes(UTF_8));
+        return output.size();
+    }
+
+    // the rows were built into points with boxed values, dispatching on the type of each value
+    private Point point(int position)
+    {
+        long timestamp = -1;
+        Map<String, Object> fieldsToAdd = new HashMap<>();
+        Map<String, String> tagsToAdd = new HashMap<>();
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            Block block = page.getBlock(channel);
+            if (block.isNull(position)) {
+                continue;
+            }
+            Object value = getValue(block, position, columnTypes.get(channel));
+            switch (columnKinds.get(channel)) {
+                case TIME_KIND -> {
+                    timestamp = (long) value;
+                }
+                case TAG_KIND -> tagsToAdd.put(columnNames.get(channel), (String) value);
+                default -> fieldsToAdd.put(columnNames.get(channel), value);
+            }
+        }
+        return Point.measurement("cpu").tag(tagsToAdd).fields(fieldsToAdd).time(timestamp, TimeUnit.NANOSECONDS).build();
+    }
+
+    private static Object getValue(Block block, int position, Type type)
+    {
+        if (TIMESTAMP_TZ_NANOS.equals(type)) {
+            LongTimestampWithTimeZone value = (LongTimestampWithTimeZone) type.getObject(block, position);
+            return value.getEpochMillis() * NANOSECONDS_PER_MILLISECOND + roundDiv(value.getPicosOfMilli(), PICOSECONDS_PER_NANOSECOND);
+        }
+        if (type instanceof VarcharType) {
+            return type.getSlice(block, position).toStringUtf8();
+        }
+        if (BIGINT.equals(type)) {
+            return type.getLong(block, position);
+        }
+        if (DOUBLE.equals(type)) {
+            return type.getDouble(block, position);
+        }
+        return type.getBoolean(block, position);
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(".*" + BenchmarkOpenGeminiLineProtocolEncoder.class.getSimpleName() + ".*")
+                .build())
+                .run();
+    }
+}